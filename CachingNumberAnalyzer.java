@@ -0,0 +1,307 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A NumberAnalyzer that keeps the results of the latest getMax, getMin and getSum calls of the wrapped analyzer
+ * in a bounded LRU cache, so a repeated range is answered with one hash lookup.
+ *
+ * An update only drops the cached ranges that contain the updated index. To find them, every cached range is
+ * registered in the O(log n) canonical nodes of a segment tree over the indices (the nodes a range query would stop
+ * at). A range contains index exactly when one of its canonical nodes lies on the path from the root to index, so an
+ * update only looks at the log n nodes of that path, whatever the number of cached ranges.
+ *
+ * The other queries (getStats, the comparator queries and the parity counts) are not cached and are forwarded to the
+ * wrapped analyzer, so they keep its complexity.
+ * All the methods hold the monitor of this analyzer, also while a miss runs the query on the wrapped analyzer,
+ * since the wrapped analyzers are not thread-safe (their queries can push lazy tags down). Concurrent readers are
+ * therefore serialized, hits only hold the monitor for one hash lookup.
+ */
+public class CachingNumberAnalyzer extends NumberAnalyzer {
+
+    protected static final int MAX = 0;
+    protected static final int MIN = 1;
+    protected static final int SUM = 2;
+
+    protected final NumberAnalyzer analyzer;
+    protected final int maxEntries;
+    protected final int size;
+    protected final LinkedHashMap<Long, Integer> cache;
+    // the cached keys registered in each node of the interval index, by the node's index in the 2i+1/2i+2 layout
+    protected final HashMap<Integer, HashSet<Long>> nodeKeys;
+    protected long hits;
+    protected long misses;
+    protected long invalidations;
+
+    /**
+     * Constructs a caching view of the given analyzer.
+     * @param analyzer the wrapped analyzer
+     * @param maxEntries the maximal number of cached results, the least recently used result is dropped first
+     */
+    public CachingNumberAnalyzer(NumberAnalyzer analyzer, int maxEntries) {
+        super(analyzer.numbers);
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.analyzer = analyzer;
+        this.maxEntries = maxEntries;
+        this.size = analyzer.numbers.length;
+        this.nodeKeys = new HashMap<Integer, HashSet<Long>>();
+        this.cache = new LinkedHashMap<Long, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                if (size() > CachingNumberAnalyzer.this.maxEntries) {
+                    unregister(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Helper function that packs an operation and a range into a cache key.
+     * @param operation MAX, MIN or SUM
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return the key
+     */
+    protected static long key(int operation, int left, int right) {
+        return ((long)operation << 62) | ((long)left << 31) | right;
+    }
+
+    /**
+     * Helper function that returns a cached result, or computes, caches and registers it.
+     * @param operation MAX, MIN or SUM
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return the result of the operation on the range
+     * @throws IndexOutOfBoundsException if [left, right] is not a non-empty range inside [0, size-1]
+     */
+    protected synchronized Integer cached(int operation, int left, int right) {
+        // the key packs both endpoints in 31 bits each, which only holds for valid ranges
+        if ((left < 0) || (left > right) || (right >= this.size)) {
+            throw new IndexOutOfBoundsException("Range [" + left + ", " + right + "] is out of [0, " + (this.size - 1) + "]");
+        }
+        long key = key(operation, left, right);
+        Integer result = this.cache.get(key);
+        if (result != null) {
+            this.hits++;
+            return result;
+        }
+        this.misses++;
+        if (operation == MAX) {
+            result = this.analyzer.getMax(left, right);
+        } else if (operation == MIN) {
+            result = this.analyzer.getMin(left, right);
+        } else {
+            result = this.analyzer.getSum(left, right);
+        }
+        rec_register(0, 0, this.size - 1, left, right, key, true);
+        this.cache.put(key, result);
+        return result;
+    }
+
+    /**
+     * Helper function
+     * Recursively adds the key to (or removes it from) the canonical nodes of the range [left, right].
+     *
+     * @param nodeIdx the index of the current node
+     * @param start the start index of the node's segment
+     * @param end the end index of the node's segment
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @param key the cache key of the range
+     * @param add true to register the key, false to remove it
+     */
+    protected void rec_register(int nodeIdx, int start, int end, int left, int right, long key, boolean add) {
+        if ((start >= left) && (end <= right)) {
+            if (add) {
+                this.nodeKeys.computeIfAbsent(nodeIdx, k -> new HashSet<Long>()).add(key);
+            } else {
+                HashSet<Long> keys = this.nodeKeys.get(nodeIdx);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        this.nodeKeys.remove(nodeIdx);
+                    }
+                }
+            }
+            return;
+        }
+        int mid = (start + end) >>> 1;
+        if (left <= mid) {
+            rec_register(nodeIdx*2 + 1, start, mid, left, right, key, add);
+        }
+        if (right > mid) {
+            rec_register(nodeIdx*2 + 2, mid+1, end, left, right, key, add);
+        }
+    }
+
+    /**
+     * Helper function that removes a key from the interval index.
+     * @param key the cache key of a range
+     */
+    protected void unregister(long key) {
+        int left = (int)((key >>> 31) & Integer.MAX_VALUE);
+        int right = (int)(key & Integer.MAX_VALUE);
+        rec_register(0, 0, this.size - 1, left, right, key, false);
+    }
+
+    /**
+     * Helper function that drops every cached range that contains index: the keys of the nodes on the path
+     * from the root to the leaf of index.
+     * @param index the updated index
+     */
+    protected void invalidate(int index) {
+        ArrayList<Long> stale = new ArrayList<Long>();
+        int nodeIdx = 0;
+        int start = 0;
+        int end = this.size - 1;
+        while (true) {
+            HashSet<Long> keys = this.nodeKeys.get(nodeIdx);
+            if (keys != null) {
+                stale.addAll(keys);
+            }
+            if (start == end) {
+                break;
+            }
+            int mid = (start + end) >>> 1;
+            if (index <= mid) {
+                nodeIdx = nodeIdx*2 + 1; // go left
+                end = mid;
+            } else {
+                nodeIdx = nodeIdx*2 + 2; // go right
+                start = mid + 1;
+            }
+        }
+        for (long key : stale) {
+            unregister(key);
+            this.cache.remove(key);
+        }
+        this.invalidations += stale.size();
+    }
+
+    @Override
+    public Integer getMax(int left, int right) {
+        return cached(MAX, left, right);
+    }
+
+    @Override
+    public Integer getMin(int left, int right) {
+        return cached(MIN, left, right);
+    }
+
+    @Override
+    public Integer getSum(int left, int right) {
+        return cached(SUM, left, right);
+    }
+
+    /**
+     * Returns the minimum, maximum and sum of the range from the wrapped analyzer, not cached.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return A SegmentTreeNode that contains the minimum, maximum and sum values for the given range
+     */
+    @Override
+    public synchronized SegmentTreeNode getStats(int left, int right) {
+        return this.analyzer.getStats(left, right);
+    }
+
+    /**
+     * Returns the biggest value of the range by compare from the wrapped analyzer, not cached.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The biggest value in the range by compare.
+     */
+    @Override
+    public synchronized int getMaxByComparator(int left, int right) {
+        return this.analyzer.getMaxByComparator(left, right);
+    }
+
+    /**
+     * Returns the smallest value of the range by compare from the wrapped analyzer, not cached.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The smallest value in the range by compare.
+     */
+    @Override
+    public synchronized int getMinByComparator(int left, int right) {
+        return this.analyzer.getMinByComparator(left, right);
+    }
+
+    /**
+     * Returns the number of even values of the range from the wrapped analyzer, not cached.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The number of even values in the range.
+     */
+    @Override
+    public synchronized int countEven(int left, int right) {
+        return this.analyzer.countEven(left, right);
+    }
+
+    /**
+     * Returns the number of odd values of the range from the wrapped analyzer, not cached.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The number of odd values in the range.
+     */
+    @Override
+    public synchronized int countOdd(int left, int right) {
+        return this.analyzer.countOdd(left, right);
+    }
+
+    /**
+     * Updates the wrapped analyzer, and drops the cached ranges that contain index.
+     * @param index The index of the value to be updated.
+     * @param value The new value.
+     */
+    @Override
+    public synchronized void update(int index, int value) {
+        this.analyzer.update(index, value);
+        invalidate(index);
+    }
+
+    /**
+     * Drops all the cached results.
+     */
+    public synchronized void clear() {
+        this.cache.clear();
+        this.nodeKeys.clear();
+    }
+
+    /**
+     * Returns the number of queries answered from the cache.
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of queries passed to the wrapped analyzer.
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+    /**
+     * Returns the number of cached results dropped by updates.
+     * @return the invalidation count
+     */
+    public synchronized long getInvalidationCount() {
+        return this.invalidations;
+    }
+
+    /**
+     * Returns the number of cached results.
+     * @return the cache size
+     */
+    public synchronized int cacheSize() {
+        return this.cache.size();
+    }
+}
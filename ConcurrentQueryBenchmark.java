@@ -0,0 +1,107 @@
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures queryRange throughput of {@link ConcurrentSegmentTree} with 1, 2, 4, ... reader threads
+ * while one writer thread keeps calling update, next to the same tree behind one global lock.
+ */
+public class ConcurrentQueryBenchmark {
+
+    private static final int SIZE = 1 << 20;
+    private static final long RUN_MILLIS = 2000;
+    // keeps the query results alive, so the queries are not optimized away
+    private static volatile int sink;
+
+    /**
+     * Runs the benchmark for every reader count up to the number of available processors.
+     * @param args command line arguments
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int[] arr = new int[SIZE];
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            arr[i] = random.nextInt(1000);
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int readers = 1; readers <= Math.max(cores, 1); readers = readers * 2) {
+            SegmentTree optimistic = new ConcurrentSegmentTree(new SummationIterativeSegmentTreeByArray(arr));
+            SegmentTree locked = new GlobalLockSegmentTree(new SummationIterativeSegmentTreeByArray(arr));
+            System.out.println(readers + " readers: optimistic " + run(optimistic, readers) + " queries/s, global lock "
+                + run(locked, readers) + " queries/s");
+        }
+    }
+
+    /**
+     * Runs the readers and one writer on the tree for RUN_MILLIS.
+     * @param tree the benchmarked tree
+     * @param readers the number of reader threads
+     * @return the number of queries per second of all the readers together
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    private static long run(SegmentTree tree, int readers) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder queries = new LongAdder();
+        CountDownLatch done = new CountDownLatch(readers + 1);
+
+        for (int t = 0; t < readers; t++) {
+            final long seed = t;
+            new Thread(() -> {
+                Random random = new Random(seed);
+                long count = 0;
+                int blackhole = 0;
+                while (running.get()) {
+                    int a = random.nextInt(SIZE);
+                    int b = random.nextInt(SIZE);
+                    blackhole = blackhole ^ tree.queryRange(Math.min(a, b), Math.max(a, b));
+                    count++;
+                }
+                queries.add(count);
+                sink = blackhole;
+                done.countDown();
+            }).start();
+        }
+        new Thread(() -> {
+            Random random = new Random(-1);
+            while (running.get()) {
+                tree.update(random.nextInt(SIZE), random.nextInt(1000));
+            }
+            done.countDown();
+        }).start();
+
+        Thread.sleep(RUN_MILLIS);
+        running.set(false);
+        done.await();
+        return queries.sum() * 1000 / RUN_MILLIS;
+    }
+
+    /**
+     * The baseline: every operation takes the same monitor, so readers wait for each other and for the writer.
+     */
+    private static class GlobalLockSegmentTree implements SegmentTree {
+        private final SegmentTree tree;
+
+        // constructor
+        GlobalLockSegmentTree(SegmentTree tree) {
+            this.tree = tree;
+        }
+
+        public synchronized void build(int[] arr) {
+            this.tree.build(arr);
+        }
+
+        public synchronized int queryRange(int left, int right) {
+            return this.tree.queryRange(left, right);
+        }
+
+        public synchronized void update(int index, int value) {
+            this.tree.update(index, value);
+        }
+
+        public synchronized int size() {
+            return this.tree.size();
+        }
+    }
+}
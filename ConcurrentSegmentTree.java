@@ -0,0 +1,185 @@
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread-safe segment tree. Writers take a StampedLock write lock, while readers first run the query
+ * without any lock (optimistic read) and only fall back to the read lock if a writer got in the way.
+ * Many reader threads can therefore run queryRange at the same time, alongside a writer doing update.
+ *
+ * Optimistic reads are only safe when a query never writes to the tree, so the wrapped tree is an
+ * {@link IterativeSegmentTreeByArray}, whose queries only read this.tree.
+ */
+public class ConcurrentSegmentTree implements SegmentTree {
+
+    protected final IterativeSegmentTreeByArray tree;
+    protected final StampedLock lock;
+
+    /**
+     * Constructs a thread-safe view of the given tree. The tree must not be used directly afterwards.
+     * @param tree the wrapped segment tree
+     */
+    public ConcurrentSegmentTree(IterativeSegmentTreeByArray tree) {
+        this.tree = tree;
+        this.lock = new StampedLock();
+    }
+
+    /**
+     * Rebuilds the segment tree from the given array of integers.
+     * @param arr the array of integers to build the segment tree from
+     */
+    @Override
+    public void build(int[] arr) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.tree.build(arr);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Queries the segment tree for a range of elements.
+     * Runs without locking first, and repeats the query under the read lock if a write happened meanwhile.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @return the result of the range query
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        long stamp = this.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int result = this.tree.queryRange(left, right);
+                if (this.lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // a concurrent build or append can swap the array in the middle of the query
+                if (this.lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = this.lock.readLock();
+        try {
+            return this.tree.queryRange(left, right);
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Updates the element at the specified index under the write lock.
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     */
+    @Override
+    public void update(int index, int value) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.tree.update(index, value);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Updates several elements under a single write lock.
+     * @param indices the indices of the elements to update
+     * @param values the new values, values[i] is written to indices[i]
+     */
+    @Override
+    public void updateAll(int[] indices, int[] values) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.tree.updateAll(indices, values);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds delta to every element in the specified range under a single write lock.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param delta the value to add to every element in the range
+     */
+    @Override
+    public void rangeAdd(int left, int right, int delta) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.tree.rangeAdd(left, right, delta);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Sets every element in the specified range to value under a single write lock.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param value the new value of every element in the range
+     */
+    @Override
+    public void rangeAssign(int left, int right, int value) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.tree.rangeAssign(left, right, value);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds an element after the last one under the write lock.
+     * @param value the new element
+     */
+    public void append(int value) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.tree.append(value);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds several elements after the last one under a single write lock.
+     * @param values the new elements, in order
+     */
+    public void appendAll(int[] values) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.tree.appendAll(values);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of elements in the original array that the segment tree was built from.
+     * @return the size of the original array
+     */
+    @Override
+    public int size() {
+        long stamp = this.lock.readLock();
+        try {
+            return this.tree.size();
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a string representation of the wrapped segment tree.
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        long stamp = this.lock.readLock();
+        try {
+            return this.tree.toString();
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+}
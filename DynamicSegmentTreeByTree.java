@@ -0,0 +1,351 @@
+/**
+ * An abstract base class for a dynamic segment tree over a range of long indices [low, high].
+ * Nothing is allocated up front: every element starts with a default value, and nodes are created only on the
+ * paths of the updated indices, so the memory grows with the number of updates (about 64 nodes per update at most)
+ * and not with the size of the range. A missing subtree is answered from the default value.
+ * Sums are kept as longs, as the range may hold far more than 2^31 elements. They are computed with exact
+ * arithmetic, so a sum that does not fit a long throws an ArithmeticException instead of wrapping: the constructor
+ * rejects a range whose default values alone overflow, and an update that would overflow the sum of a segment is
+ * undone before it throws. A default value of 0 lifts the first limit, so the whole long range can be used.
+ * Subclasses must implement the {@code queryRange} method to provide specific range query functionality.
+ */
+public abstract class DynamicSegmentTreeByTree implements SegmentTree {
+
+    protected DynamicSegmentTreeNode root;
+    protected long low;
+    protected long high;
+    protected int defaultValue;
+    protected long nodeCount;
+
+    /**
+     * Constructor for creating an empty dynamic Segment Tree, where every index of [low, high] has the default value
+     * @param low the first index (inclusive)
+     * @param high the last index (inclusive)
+     * @param defaultValue the value of every index that was never updated
+     * @throws IllegalArgumentException if low is greater than high, or the sum of [low, high] does not fit a long
+     */
+    public DynamicSegmentTreeByTree(long low, long high, int defaultValue) {
+        if (low > high) {
+            throw new IllegalArgumentException("low must not be greater than high");
+        }
+        if (defaultValue != 0) {
+            try {
+                Math.multiplyExact((long)defaultValue, Math.addExact(Math.subtractExact(high, low), 1));
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("The sum of [" + low + ", " + high + "] with a default value of " + defaultValue + " does not fit a long");
+            }
+        }
+        this.low = low;
+        this.high = high;
+        this.defaultValue = defaultValue;
+        this.root = null;
+        this.nodeCount = 0;
+    }
+
+    /**
+     * Constructor for creating a dynamic Segment Tree over the indices [0, arr.length-1] of an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     * @param defaultValue the value of every index that was never updated
+     */
+    public DynamicSegmentTreeByTree(int[] arr, int defaultValue) {
+        this.defaultValue = defaultValue;
+        build(arr);
+    }
+
+    /**
+     * Rebuilds the tree over the indices [0, arr.length-1]. Only the elements that differ from the default value
+     * create nodes.
+     *
+     * @param arr the array of integers to build the segment tree from
+     */
+    @Override
+    public void build(int[] arr) {
+        if (arr.length == 0) {
+            throw new IllegalArgumentException("arr must not be empty");
+        }
+        this.low = 0;
+        this.high = arr.length - 1;
+        this.root = null;
+        this.nodeCount = 0;
+        for (int i = 0; i < arr.length; i++) {
+            if (arr[i] != this.defaultValue) {
+                update((long)i, arr[i]);
+            }
+        }
+    }
+
+    /**
+     * Helper function that returns the mid index (rounded down) of given start & end indices without overflowing.
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     * @return The mid index of the segment
+     */
+    protected static long getMidpoint(long start, long end) {
+        return (start >> 1) + (end >> 1) + (start & end & 1);
+    }
+
+    /**
+     * Updates the element at the specified index.
+     *
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     */
+    @Override
+    public void update(int index, int value) {
+        update((long)index, value);
+    }
+
+    /**
+     * Updates the element at the specified long index, creating the missing nodes on its path.
+     * If the new value overflows the sum of a segment, the old value is written back before throwing.
+     *
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     * @throws ArithmeticException if the sum of a segment would not fit a long
+     */
+    public void update(long index, int value) {
+        if ((index < this.low) || (index > this.high)) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of [" + this.low + ", " + this.high + "]");
+        }
+        int old = queryMinHelper(this.root, this.low, this.high, index, index);
+        try {
+            this.root = create_n_update(this.root, this.low, this.high, index, value);
+        } catch (ArithmeticException e) {
+            this.root = create_n_update(this.root, this.low, this.high, index, old);
+            throw new ArithmeticException("Updating index " + index + " to " + value + " overflows the sum of a segment");
+        }
+    }
+
+    /**
+     * Helper function
+     * Recursively updates the leaf of index under a given node, creating the node first if it does not exist.
+     *
+     * @param node the current node, null if its segment was never updated
+     * @param start the start index of the node's segment
+     * @param end the end index of the node's segment
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     * @return the node (the new node if it did not exist)
+     */
+    protected DynamicSegmentTreeNode create_n_update(DynamicSegmentTreeNode node, long start, long end, long index, int value) {
+        if (node == null) {
+            node = new DynamicSegmentTreeNode(this.defaultValue, end - start + 1);
+            this.nodeCount++;
+        }
+        if (start == end) {
+            node.setMin(value);
+            node.setMax(value);
+            node.setSum(value);
+            return node;
+        }
+        long mid = getMidpoint(start, end);
+        if (index <= mid) {
+            node.leftChild = create_n_update((DynamicSegmentTreeNode)node.leftChild, start, mid, index, value); // go left
+        } else {
+            node.rightChild = create_n_update((DynamicSegmentTreeNode)node.rightChild, mid + 1, end, index, value); // go right
+        }
+        updateNode(node, start, mid, end);
+        return node;
+    }
+
+    /**
+     * Helper function that recomputes a node from its children. A missing child counts as a segment of default values.
+     * @param node the node
+     * @param start the start index of the node's segment
+     * @param mid the last index of the left child's segment
+     * @param end the end index of the node's segment
+     */
+    protected void updateNode(DynamicSegmentTreeNode node, long start, long mid, long end) {
+        DynamicSegmentTreeNode left = (DynamicSegmentTreeNode)node.leftChild;
+        DynamicSegmentTreeNode right = (DynamicSegmentTreeNode)node.rightChild;
+        int d = this.defaultValue;
+        node.setMin(Math.min(left == null ? d : left.getMin(), right == null ? d : right.getMin()));
+        node.setMax(Math.max(left == null ? d : left.getMax(), right == null ? d : right.getMax()));
+        node.setSum(Math.addExact(left == null ? (long)d * (mid - start + 1) : left.getSum(), right == null ? (long)d * (end - mid) : right.getSum()));
+    }
+
+    /**
+     * Queries the Segment Tree for the minimum value in the given range.
+     * The part of the range outside [low, high] is ignored.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Minimum value in the given range
+     * @throws IndexOutOfBoundsException if the range is empty or entirely outside [low, high]
+     */
+    public int queryMin(long left, long right) {
+        checkRange(left, right);
+        return queryMinHelper(this.root, this.low, this.high, Math.max(left, this.low), Math.min(right, this.high));
+    }
+
+    /**
+     * Queries the Segment Tree for the maximum value in the given range.
+     * The part of the range outside [low, high] is ignored.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Maximum value in the given range
+     * @throws IndexOutOfBoundsException if the range is empty or entirely outside [low, high]
+     */
+    public int queryMax(long left, long right) {
+        checkRange(left, right);
+        return queryMaxHelper(this.root, this.low, this.high, Math.max(left, this.low), Math.min(right, this.high));
+    }
+
+    /**
+     * Queries the Segment Tree for the sum of the values in the given range.
+     * The part of the range outside [low, high] is ignored.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Sum of the values in the given range
+     * @throws IndexOutOfBoundsException if the range is empty or entirely outside [low, high]
+     * @throws ArithmeticException if the sum does not fit a long
+     */
+    public long querySum(long left, long right) {
+        checkRange(left, right);
+        return querySumHelper(this.root, this.low, this.high, Math.max(left, this.low), Math.min(right, this.high));
+    }
+
+    /**
+     * Helper function that rejects a query range that is empty or does not meet [low, high].
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @throws IndexOutOfBoundsException if the range is empty or entirely outside [low, high]
+     */
+    protected void checkRange(long left, long right) {
+        if ((left > right) || (right < this.low) || (left > this.high)) {
+            throw new IndexOutOfBoundsException("Range [" + left + ", " + right + "] is out of [" + this.low + ", " + this.high + "]");
+        }
+    }
+
+    /**
+     * Helper method for querying the minimum value of a range.
+     * @param node Current node of the Segment Tree, null if its segment was never updated
+     * @param start the start index of the node's segment
+     * @param end the end index of the node's segment
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Minimum value in the given range
+     */
+    protected int queryMinHelper(DynamicSegmentTreeNode node, long start, long end, long left, long right) {
+        if (node == null) {
+            return this.defaultValue;
+        }
+        if ((start >= left) && (end <= right)) {
+            return node.getMin();
+        }
+        long mid = getMidpoint(start, end);
+        if (right <= mid) {
+            return queryMinHelper((DynamicSegmentTreeNode)node.leftChild, start, mid, left, right);
+        } else if (left > mid) {
+            return queryMinHelper((DynamicSegmentTreeNode)node.rightChild, mid + 1, end, left, right);
+        }
+        return Math.min(queryMinHelper((DynamicSegmentTreeNode)node.leftChild, start, mid, left, right),
+                        queryMinHelper((DynamicSegmentTreeNode)node.rightChild, mid + 1, end, left, right));
+    }
+
+    /**
+     * Helper method for querying the maximum value of a range.
+     * @param node Current node of the Segment Tree, null if its segment was never updated
+     * @param start the start index of the node's segment
+     * @param end the end index of the node's segment
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Maximum value in the given range
+     */
+    protected int queryMaxHelper(DynamicSegmentTreeNode node, long start, long end, long left, long right) {
+        if (node == null) {
+            return this.defaultValue;
+        }
+        if ((start >= left) && (end <= right)) {
+            return node.getMax();
+        }
+        long mid = getMidpoint(start, end);
+        if (right <= mid) {
+            return queryMaxHelper((DynamicSegmentTreeNode)node.leftChild, start, mid, left, right);
+        } else if (left > mid) {
+            return queryMaxHelper((DynamicSegmentTreeNode)node.rightChild, mid + 1, end, left, right);
+        }
+        return Math.max(queryMaxHelper((DynamicSegmentTreeNode)node.leftChild, start, mid, left, right),
+                        queryMaxHelper((DynamicSegmentTreeNode)node.rightChild, mid + 1, end, left, right));
+    }
+
+    /**
+     * Helper method for querying the sum of a range.
+     * @param node Current node of the Segment Tree, null if its segment was never updated
+     * @param start the start index of the node's segment
+     * @param end the end index of the node's segment
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Sum of the values in the given range
+     */
+    protected long querySumHelper(DynamicSegmentTreeNode node, long start, long end, long left, long right) {
+        if (node == null) {
+            return (long)this.defaultValue * (Math.min(end, right) - Math.max(start, left) + 1);
+        }
+        if ((start >= left) && (end <= right)) {
+            return node.getSum();
+        }
+        long mid = getMidpoint(start, end);
+        if (right <= mid) {
+            return querySumHelper((DynamicSegmentTreeNode)node.leftChild, start, mid, left, right);
+        } else if (left > mid) {
+            return querySumHelper((DynamicSegmentTreeNode)node.rightChild, mid + 1, end, left, right);
+        }
+        return Math.addExact(querySumHelper((DynamicSegmentTreeNode)node.leftChild, start, mid, left, right),
+                             querySumHelper((DynamicSegmentTreeNode)node.rightChild, mid + 1, end, left, right));
+    }
+
+    /**
+     * Queries the Segment Tree for a range of long indices. to be implemented by subclasses.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return the aggregate value in the given range
+     */
+    public abstract long queryRange(long left, long right);
+
+    /**
+     * Queries the Segment Tree for a range of int indices. A sum that does not fit an int is truncated,
+     * as in the other int trees.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return the aggregate value in the given range
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        return (int)queryRange((long)left, (long)right);
+    }
+
+    /**
+     * Returns the first index of the tree.
+     * @return the first index (inclusive)
+     */
+    public long getLow() {
+        return this.low;
+    }
+
+    /**
+     * Returns the last index of the tree.
+     * @return the last index (inclusive)
+     */
+    public long getHigh() {
+        return this.high;
+    }
+
+    /**
+     * Returns the number of nodes created so far, which is what the tree takes in memory.
+     * @return the number of nodes
+     */
+    public long nodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Returns the number of indices of the tree.
+     *
+     * @return the size of the index range
+     * @throws ArithmeticException if the range has more than Integer.MAX_VALUE indices
+     */
+    @Override
+    public int size() {
+        return Math.toIntExact(Math.addExact(Math.subtractExact(this.high, this.low), 1));
+    }
+}
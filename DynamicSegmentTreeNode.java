@@ -0,0 +1,78 @@
+/**
+ * A node of a {@link DynamicSegmentTreeByTree}.
+ * The segment of a node is known from the path that leads to it, so only the min, max and sum are stored.
+ * A null child stands for a segment that was never updated, whose elements all have the default value.
+ */
+public class DynamicSegmentTreeNode extends TreeNode {
+    private int min;
+    private int max;
+    private long sum;
+
+    /**
+     * Constructs a new DynamicSegmentTreeNode for a segment of the given length whose elements all have the same value.
+     *
+     * @param value The value of every element of the segment.
+     * @param length The number of elements of the segment.
+     * @throws ArithmeticException if the sum of the segment does not fit a long
+     */
+    public DynamicSegmentTreeNode(int value, long length) {
+        super();
+        this.min = value;
+        this.max = value;
+        this.sum = Math.multiplyExact((long)value, length);
+    }
+
+    /**
+     * Returns the minimum value of the segment represented by this node.
+     *
+     * @return The minimum value of the segment.
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Sets the minimum value of the segment represented by this node.
+     *
+     * @param min The minimum value of the segment.
+     */
+    public void setMin(int min) {
+        this.min = min;
+    }
+
+    /**
+     * Returns the maximum value of the segment represented by this node.
+     *
+     * @return The maximum value of the segment.
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Sets the maximum value of the segment represented by this node.
+     *
+     * @param max The maximum value of the segment.
+     */
+    public void setMax(int max) {
+        this.max = max;
+    }
+
+    /**
+     * Returns the sum of the values of the segment represented by this node.
+     *
+     * @return The sum of the values of the segment.
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Sets the sum of the values of the segment represented by this node.
+     *
+     * @param sum The sum of the values of the segment.
+     */
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * This class represents a segment tree that maintains the min, max and sum of every segment together.
+ * The three aggregates are kept in three parallel arrays (struct of arrays) that use the non-recursive layout of
+ * {@link IterativeSegmentTreeByArray}: leaves in [n .. 2n-1] and node i combining its children 2i and 2i+1.
+ * A single update walks one leaf-to-root path and refreshes all three arrays on the way,
+ * and a single query returns all three aggregates.
+ */
+public class FusedSegmentTreeByArray {
+
+    protected int[] minTree;
+    protected int[] maxTree;
+    protected int[] sumTree;
+    protected int size;
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public FusedSegmentTreeByArray(int[] arr) {
+        build(arr);
+    }
+
+    /**
+     * Builds the segment tree from the input array in linear time.
+     * @param arr the input array
+     */
+    public void build(int[] arr) {
+        this.size = arr.length;
+        this.minTree = new int[2 * this.size];
+        this.maxTree = new int[2 * this.size];
+        this.sumTree = new int[2 * this.size];
+        System.arraycopy(arr, 0, this.minTree, this.size, this.size);
+        System.arraycopy(arr, 0, this.maxTree, this.size, this.size);
+        System.arraycopy(arr, 0, this.sumTree, this.size, this.size);
+        for (int i = this.size - 1; i > 0; i--) {
+            updateNode(i);
+        }
+    }
+
+    /**
+     * Helper function that updates a given node's min, max and sum values from its children
+     *
+     * @param nodeIdx Index of a node in the tree
+     */
+    protected void updateNode(int nodeIdx) {
+        int left = 2 * nodeIdx;
+        int right = left + 1;
+        this.minTree[nodeIdx] = Math.min(this.minTree[left], this.minTree[right]);
+        this.maxTree[nodeIdx] = Math.max(this.maxTree[left], this.maxTree[right]);
+        this.sumTree[nodeIdx] = this.sumTree[left] + this.sumTree[right];
+    }
+
+    /**
+     * Updates the value at the specified index and recomputes the min, max and sum of each ancestor once.
+     * @param index the index of the element to update in the array
+     * @param value the new value to replace the existing value
+     */
+    public void update(int index, int value) {
+        int i = index + this.size;
+        this.minTree[i] = value;
+        this.maxTree[i] = value;
+        this.sumTree[i] = value;
+        for (i = i >> 1; i > 0; i = i >> 1) {
+            updateNode(i);
+        }
+    }
+
+    /**
+     * Queries the segment tree for the min, max and sum of a range in one walk.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return A SegmentTreeNode that contains the minimum, maximum and sum values for the given range
+     */
+    public SegmentTreeNode getStats(int left, int right) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int sum = 0;
+        int l = left + this.size;
+        int r = right + this.size + 1;
+        while (l < r) {
+            if ((l & 1) == 1) {
+                min = Math.min(min, this.minTree[l]);
+                max = Math.max(max, this.maxTree[l]);
+                sum = sum + this.sumTree[l];
+                l++;
+            }
+            if ((r & 1) == 1) {
+                r--;
+                min = Math.min(min, this.minTree[r]);
+                max = Math.max(max, this.maxTree[r]);
+                sum = sum + this.sumTree[r];
+            }
+            l = l >> 1;
+            r = r >> 1;
+        }
+        return new SegmentTreeNode(left, right, min, max, sum, null, null);
+    }
+
+    /**
+     * Queries the segment tree for the minimum value in a range.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the minimum value in the range
+     */
+    public int getMin(int left, int right) {
+        int min = Integer.MAX_VALUE;
+        for (int l = left + this.size, r = right + this.size + 1; l < r; l = l >> 1, r = r >> 1) {
+            if ((l & 1) == 1) {
+                min = Math.min(min, this.minTree[l++]);
+            }
+            if ((r & 1) == 1) {
+                min = Math.min(min, this.minTree[--r]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Queries the segment tree for the maximum value in a range.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the maximum value in the range
+     */
+    public int getMax(int left, int right) {
+        int max = Integer.MIN_VALUE;
+        for (int l = left + this.size, r = right + this.size + 1; l < r; l = l >> 1, r = r >> 1) {
+            if ((l & 1) == 1) {
+                max = Math.max(max, this.maxTree[l++]);
+            }
+            if ((r & 1) == 1) {
+                max = Math.max(max, this.maxTree[--r]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Queries the segment tree for the sum of a range.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the sum of the values in the range
+     */
+    public int getSum(int left, int right) {
+        int sum = 0;
+        for (int l = left + this.size, r = right + this.size + 1; l < r; l = l >> 1, r = r >> 1) {
+            if ((l & 1) == 1) {
+                sum = sum + this.sumTree[l++];
+            }
+            if ((r & 1) == 1) {
+                sum = sum + this.sumTree[--r];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the number of elements in the original array that the segment tree was built from.
+     *
+     * @return the size of the original array
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a string representation of the segment tree.
+     * Every node from the root in index 1 is printed as min/max/sum.
+     * For example, for {10,30,50} " [ 10/50/90 30/50/80 10/10/10 30/30/30 50/50/50 ] " will be returned
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        StringBuilder daTree = new StringBuilder(" [");
+        for (int i = 1; i < this.sumTree.length; i++) {
+            daTree.append(' ').append(this.minTree[i]).append('/').append(this.maxTree[i]).append('/').append(this.sumTree[i]);
+        }
+        daTree.append(" ] ");
+        return daTree.toString();
+    }
+}
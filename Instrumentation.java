@@ -0,0 +1,50 @@
+/**
+ * Counters of the work done inside the segment trees: the nodes visited by queries and updates, and the query
+ * splits (nodes where a query continues into both children).
+ *
+ * The counting is switched on with -Dsegmenttree.instrumentation=true. ENABLED is a static final constant, so when
+ * it is off the JIT removes the {@code if (Instrumentation.ENABLED)} checks in the trees completely and the trees
+ * run exactly as without them. The counts are kept per thread, so {@link InstrumentedSegmentTree} can tell how
+ * many nodes a single operation visited by reading them before and after it.
+ */
+public final class Instrumentation {
+
+    public static final boolean ENABLED = Boolean.getBoolean("segmenttree.instrumentation");
+
+    private static final int VISITS = 0;
+    private static final int SPLITS = 1;
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Counts a node visited by the current thread.
+     */
+    public static void visitNode() {
+        COUNTS.get()[VISITS]++;
+    }
+
+    /**
+     * Counts a query split of the current thread.
+     */
+    public static void splitQuery() {
+        COUNTS.get()[SPLITS]++;
+    }
+
+    /**
+     * Returns the number of nodes the current thread has visited so far.
+     * @return the running count of visited nodes
+     */
+    public static long visitedNodes() {
+        return COUNTS.get()[VISITS];
+    }
+
+    /**
+     * Returns the number of query splits of the current thread so far.
+     * @return the running count of splits
+     */
+    public static long querySplits() {
+        return COUNTS.get()[SPLITS];
+    }
+}
@@ -0,0 +1,185 @@
+import java.util.function.Supplier;
+
+/**
+ * A NumberAnalyzer that measures every query and update of the wrapped analyzer into a {@link SegmentTreeMetrics}.
+ * getMax, getMin, getSum and getStats are recorded as queries, and the parity queries are forwarded unrecorded.
+ * When created from a factory, the construction of the wrapped analyzer (which builds its trees) is recorded as a build.
+ */
+public class InstrumentedNumberAnalyzer extends NumberAnalyzer {
+
+    protected final NumberAnalyzer analyzer;
+    protected final SegmentTreeMetrics metrics;
+
+    /**
+     * Constructs an instrumented view of the given analyzer with its own metrics.
+     * @param analyzer the wrapped analyzer
+     */
+    public InstrumentedNumberAnalyzer(NumberAnalyzer analyzer) {
+        this(analyzer, new SegmentTreeMetrics());
+    }
+
+    /**
+     * Constructs an instrumented view of the given analyzer that records into the given metrics.
+     * @param analyzer the wrapped analyzer
+     * @param metrics the metrics, may be shared
+     */
+    public InstrumentedNumberAnalyzer(NumberAnalyzer analyzer, SegmentTreeMetrics metrics) {
+        super(analyzer.numbers);
+        this.analyzer = analyzer;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Creates the analyzer with the given factory, and records how long its construction took.
+     * @param factory creates the wrapped analyzer, for example {@code () -> new NumberAnalyzerByArrays(numbers)}
+     * @param metrics the metrics, may be shared
+     * @return the instrumented analyzer
+     */
+    public static InstrumentedNumberAnalyzer build(Supplier<NumberAnalyzer> factory, SegmentTreeMetrics metrics) {
+        if (!metrics.isEnabled()) {
+            return new InstrumentedNumberAnalyzer(factory.get(), metrics);
+        }
+        long start = System.nanoTime();
+        NumberAnalyzer analyzer = factory.get();
+        metrics.recordBuild(System.nanoTime() - start);
+        return new InstrumentedNumberAnalyzer(analyzer, metrics);
+    }
+
+    /**
+     * Returns the metrics of the analyzer.
+     * @return the metrics
+     */
+    public SegmentTreeMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Helper function that records a query of the wrapped analyzer that started at the given time and counters.
+     * The queries check isEnabled and read the clock themselves, so nothing is allocated when the metrics are off.
+     * @param start the System.nanoTime() when the query started
+     * @param nodes the visited nodes counter when the query started
+     * @param splits the query splits counter when the query started
+     */
+    protected void recordQuery(long start, long nodes, long splits) {
+        long nanos = System.nanoTime() - start;
+        if (Instrumentation.ENABLED) {
+            nodes = Instrumentation.visitedNodes() - nodes;
+            splits = Instrumentation.querySplits() - splits;
+        }
+        this.metrics.recordQuery(nanos, nodes, splits);
+    }
+
+    @Override
+    public Integer getMax(int left, int right) {
+        if (!this.metrics.isEnabled()) {
+            return this.analyzer.getMax(left, right);
+        }
+        long nodes = Instrumentation.ENABLED ? Instrumentation.visitedNodes() : 0;
+        long splits = Instrumentation.ENABLED ? Instrumentation.querySplits() : 0;
+        long start = System.nanoTime();
+        Integer result = this.analyzer.getMax(left, right);
+        recordQuery(start, nodes, splits);
+        return result;
+    }
+
+    @Override
+    public Integer getMin(int left, int right) {
+        if (!this.metrics.isEnabled()) {
+            return this.analyzer.getMin(left, right);
+        }
+        long nodes = Instrumentation.ENABLED ? Instrumentation.visitedNodes() : 0;
+        long splits = Instrumentation.ENABLED ? Instrumentation.querySplits() : 0;
+        long start = System.nanoTime();
+        Integer result = this.analyzer.getMin(left, right);
+        recordQuery(start, nodes, splits);
+        return result;
+    }
+
+    @Override
+    public Integer getSum(int left, int right) {
+        if (!this.metrics.isEnabled()) {
+            return this.analyzer.getSum(left, right);
+        }
+        long nodes = Instrumentation.ENABLED ? Instrumentation.visitedNodes() : 0;
+        long splits = Instrumentation.ENABLED ? Instrumentation.querySplits() : 0;
+        long start = System.nanoTime();
+        Integer result = this.analyzer.getSum(left, right);
+        recordQuery(start, nodes, splits);
+        return result;
+    }
+
+    @Override
+    public SegmentTreeNode getStats(int left, int right) {
+        if (!this.metrics.isEnabled()) {
+            return this.analyzer.getStats(left, right);
+        }
+        long nodes = Instrumentation.ENABLED ? Instrumentation.visitedNodes() : 0;
+        long splits = Instrumentation.ENABLED ? Instrumentation.querySplits() : 0;
+        long start = System.nanoTime();
+        SegmentTreeNode result = this.analyzer.getStats(left, right);
+        recordQuery(start, nodes, splits);
+        return result;
+    }
+
+    /**
+     * Returns the biggest value of the range by compare from the wrapped analyzer, not recorded.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @return The biggest value of the range by compare.
+     */
+    @Override
+    public int getMaxByComparator(int left, int right) {
+        return this.analyzer.getMaxByComparator(left, right);
+    }
+
+    /**
+     * Returns the smallest value of the range by compare from the wrapped analyzer, not recorded.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @return The smallest value of the range by compare.
+     */
+    @Override
+    public int getMinByComparator(int left, int right) {
+        return this.analyzer.getMinByComparator(left, right);
+    }
+
+    /**
+     * Returns the number of even values in the range from the wrapped analyzer, not recorded.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @return The number of even values in the range.
+     */
+    @Override
+    public int countEven(int left, int right) {
+        return this.analyzer.countEven(left, right);
+    }
+
+    /**
+     * Returns the number of odd values in the range from the wrapped analyzer, not recorded.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @return The number of odd values in the range.
+     */
+    @Override
+    public int countOdd(int left, int right) {
+        return this.analyzer.countOdd(left, right);
+    }
+
+    /**
+     * Updates the wrapped analyzer and records the update.
+     * @param index The index of the value to be updated.
+     * @param value The new value.
+     */
+    @Override
+    public void update(int index, int value) {
+        if (!this.metrics.isEnabled()) {
+            this.analyzer.update(index, value);
+            return;
+        }
+        long nodes = Instrumentation.ENABLED ? Instrumentation.visitedNodes() : 0;
+        long start = System.nanoTime();
+        this.analyzer.update(index, value);
+        long nanos = System.nanoTime() - start;
+        this.metrics.recordUpdate(nanos, Instrumentation.ENABLED ? Instrumentation.visitedNodes() - nodes : 0);
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * A segment tree that measures every operation of the wrapped tree into a {@link SegmentTreeMetrics}:
+ * the latency of build, queryRange and the updates, and, with -Dsegmenttree.instrumentation=true, the nodes
+ * visited and the splits of each operation.
+ */
+public class InstrumentedSegmentTree implements SegmentTree {
+
+    protected final SegmentTree tree;
+    protected final SegmentTreeMetrics metrics;
+
+    /**
+     * Constructs an instrumented view of the given tree with its own metrics.
+     * @param tree the wrapped segment tree
+     */
+    public InstrumentedSegmentTree(SegmentTree tree) {
+        this(tree, new SegmentTreeMetrics());
+    }
+
+    /**
+     * Constructs an instrumented view of the given tree that records into the given metrics.
+     * @param tree the wrapped segment tree
+     * @param metrics the metrics, may be shared by several trees
+     */
+    public InstrumentedSegmentTree(SegmentTree tree, SegmentTreeMetrics metrics) {
+        this.tree = tree;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics of the tree.
+     * @return the metrics
+     */
+    public SegmentTreeMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Rebuilds the wrapped tree and records the build duration.
+     * @param arr the array of integers to build the segment tree from
+     */
+    @Override
+    public void build(int[] arr) {
+        if (!this.metrics.isEnabled()) {
+            this.tree.build(arr);
+            return;
+        }
+        long start = System.nanoTime();
+        this.tree.build(arr);
+        this.metrics.recordBuild(System.nanoTime() - start);
+    }
+
+    /**
+     * Queries the wrapped tree and records the query.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @return the result of the range query
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        if (!this.metrics.isEnabled()) {
+            return this.tree.queryRange(left, right);
+        }
+        long nodes = Instrumentation.ENABLED ? Instrumentation.visitedNodes() : 0;
+        long splits = Instrumentation.ENABLED ? Instrumentation.querySplits() : 0;
+        long start = System.nanoTime();
+        int result = this.tree.queryRange(left, right);
+        long nanos = System.nanoTime() - start;
+        if (Instrumentation.ENABLED) {
+            nodes = Instrumentation.visitedNodes() - nodes;
+            splits = Instrumentation.querySplits() - splits;
+        }
+        this.metrics.recordQuery(nanos, nodes, splits);
+        return result;
+    }
+
+    /**
+     * Updates the wrapped tree and records the update.
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     */
+    @Override
+    public void update(int index, int value) {
+        if (!this.metrics.isEnabled()) {
+            this.tree.update(index, value);
+            return;
+        }
+        long nodes = Instrumentation.ENABLED ? Instrumentation.visitedNodes() : 0;
+        long start = System.nanoTime();
+        this.tree.update(index, value);
+        long nanos = System.nanoTime() - start;
+        this.metrics.recordUpdate(nanos, Instrumentation.ENABLED ? Instrumentation.visitedNodes() - nodes : 0);
+    }
+
+    /**
+     * Updates several elements of the wrapped tree, recorded as one update.
+     * @param indices the indices of the elements to update
+     * @param values the new values, values[i] is written to indices[i]
+     */
+    @Override
+    public void updateAll(int[] indices, int[] values) {
+        if (!this.metrics.isEnabled()) {
+            this.tree.updateAll(indices, values);
+            return;
+        }
+        long start = System.nanoTime();
+        this.tree.updateAll(indices, values);
+        this.metrics.recordUpdate(System.nanoTime() - start, 0);
+    }
+
+    /**
+     * Adds delta to a range of the wrapped tree, recorded as one update.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param delta the value to add to every element in the range
+     */
+    @Override
+    public void rangeAdd(int left, int right, int delta) {
+        if (!this.metrics.isEnabled()) {
+            this.tree.rangeAdd(left, right, delta);
+            return;
+        }
+        long start = System.nanoTime();
+        this.tree.rangeAdd(left, right, delta);
+        this.metrics.recordUpdate(System.nanoTime() - start, 0);
+    }
+
+    /**
+     * Sets a range of the wrapped tree, recorded as one update.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param value the new value of every element in the range
+     */
+    @Override
+    public void rangeAssign(int left, int right, int value) {
+        if (!this.metrics.isEnabled()) {
+            this.tree.rangeAssign(left, right, value);
+            return;
+        }
+        long start = System.nanoTime();
+        this.tree.rangeAssign(left, right, value);
+        this.metrics.recordUpdate(System.nanoTime() - start, 0);
+    }
+
+    /**
+     * Returns the number of elements in the wrapped tree.
+     * @return the size of the original array
+     */
+    @Override
+    public int size() {
+        return this.tree.size();
+    }
+
+    /**
+     * Returns a string representation of the wrapped segment tree.
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        return this.tree.toString();
+    }
+}
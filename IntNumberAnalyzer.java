@@ -0,0 +1,193 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ The IntNumberAnalyzer class is the primitive counterpart of {@link NumberAnalyzer}: it analyzes an int[] and
+ returns int results, so no value is boxed on the query, update or iteration paths.
+ The numbers are copied at construction, unless the no-copy mode is chosen, in which case the analyzer works on the
+ caller's array and its updates are visible there.
+ */
+public abstract class IntNumberAnalyzer implements Iterable<Integer> {
+
+    protected int[] numbers;
+
+    /**
+     * Constructs a new IntNumberAnalyzer object with a copy of the given array of integers.
+     * @param numbers The array of integers to be analyzed.
+     */
+    public IntNumberAnalyzer(int[] numbers) {
+        this(numbers, true);
+    }
+
+    /**
+     * Constructs a new IntNumberAnalyzer object with the given array of integers.
+     * @param numbers The array of integers to be analyzed.
+     * @param copy false to use the given array itself (no-copy mode). It must not be changed directly afterwards,
+     *             only through update.
+     */
+    public IntNumberAnalyzer(int[] numbers, boolean copy) {
+        this.numbers = copy ? numbers.clone() : numbers;
+    }
+
+    /**
+     * Returns the number of analyzed integers.
+     * @return the number of integers
+     */
+    public int size() {
+        return this.numbers.length;
+    }
+
+    /**
+     * Returns the integer at the given index.
+     * @param index the index of the integer
+     * @return the integer
+     */
+    public int get(int index) {
+        return this.numbers[index];
+    }
+
+    /**
+     * Iterable interface implementation, with a primitive iterator. nextInt() does not box.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new IntAnalyzerIterator();
+    }
+
+    /**
+     * Primitive iterator over the current values of the numbers
+     */
+    class IntAnalyzerIterator implements PrimitiveIterator.OfInt {
+        private int nextIdx = 0;
+
+        // Checks if the next element exists
+        @Override
+        public boolean hasNext() {
+            return nextIdx < numbers.length;
+        }
+
+        // moves the cursor/iterator to next element
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements");
+            }
+            return numbers[nextIdx++];
+        }
+    }
+
+    /**
+     * Returns a sequential stream of the numbers.
+     * @return an IntStream over all the numbers
+     */
+    public IntStream stream() {
+        return Arrays.stream(this.numbers);
+    }
+
+    /**
+     * Returns a sequential stream of the numbers in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return an IntStream over the numbers in the range
+     */
+    public IntStream stream(int left, int right) {
+        return Arrays.stream(this.numbers, left, right + 1);
+    }
+
+    /**
+     * Returns the maximum value in the given range. This is an abstract function to be implemented by the subclasses
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The maximum value in the range.
+     */
+    public abstract int getMax(int left, int right);
+
+    /**
+     * Returns the minimum value in the given range. This is an abstract function to be implemented by the subclasses
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The minimum value in the range.
+     */
+    public abstract int getMin(int left, int right);
+
+    /**
+     * Returns the sum of the values in the given range. This is an abstract function to be implemented by the subclasses
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The sum of the values in the range.
+     */
+    public abstract int getSum(int left, int right);
+
+    /**
+     * Updates the value at the given index. This is an abstract function to be implemented by the subclasses
+     * @param index The index of the value to be updated.
+     * @param value The new value to be set at the given index.
+     */
+    public abstract void update(int index, int value);
+
+    /**
+     * Returns the maximum value of many ranges at once. out[i] receives getMax(lefts[i], rights[i]).
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     */
+    public void getMax(int[] lefts, int[] rights, int[] out) {
+        getMax(lefts, rights, out, null);
+    }
+
+    /**
+     * Returns the maximum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    public void getMax(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        SegmentTree.queryAll((left, right) -> getMax(left, right), lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the minimum value of many ranges at once. out[i] receives getMin(lefts[i], rights[i]).
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     */
+    public void getMin(int[] lefts, int[] rights, int[] out) {
+        getMin(lefts, rights, out, null);
+    }
+
+    /**
+     * Returns the minimum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    public void getMin(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        SegmentTree.queryAll((left, right) -> getMin(left, right), lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the sum of many ranges at once. out[i] receives getSum(lefts[i], rights[i]).
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     */
+    public void getSum(int[] lefts, int[] rights, int[] out) {
+        getSum(lefts, rights, out, null);
+    }
+
+    /**
+     * Returns the sum of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    public void getSum(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        SegmentTree.queryAll((left, right) -> getSum(left, right), lefts, rights, out, pool);
+    }
+}
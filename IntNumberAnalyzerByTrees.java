@@ -0,0 +1,109 @@
+import java.util.concurrent.ForkJoinPool;
+
+public class IntNumberAnalyzerByTrees extends IntNumberAnalyzer {
+    protected MaximumSegmentTreeByTree maxTree;
+    protected MinimumSegmentTreeByTree minTree;
+    protected SummationSegmentTreeByTree sumTree;
+
+    /**
+     * Constructs a new IntNumberAnalyzer object with a copy of the given array of integers.
+     * @param numbers The array of integers to be analyzed.
+     */
+    public IntNumberAnalyzerByTrees(int[] numbers) {
+        this(numbers, true);
+    }
+
+    /**
+     * Constructs a new IntNumberAnalyzer object with the given array of integers.
+     * @param numbers The array of integers to be analyzed.
+     * @param copy false to use the given array itself (no-copy mode).
+     */
+    public IntNumberAnalyzerByTrees(int[] numbers, boolean copy) {
+        super(numbers, copy);
+        this.maxTree = new MaximumSegmentTreeByTree(this.numbers);
+        this.minTree = new MinimumSegmentTreeByTree(this.numbers);
+        this.sumTree = new SummationSegmentTreeByTree(this.numbers);
+    }
+
+    /**
+     * Returns the maximum value in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The maximum value in the range.
+     */
+    @Override
+    public int getMax(int left, int right) {
+        return this.maxTree.queryRange(left, right);
+    }
+
+    /**
+     * Returns the minimum value in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The minimum value in the range.
+     */
+    @Override
+    public int getMin(int left, int right) {
+        return this.minTree.queryRange(left, right);
+    }
+
+    /**
+     * Returns the sum of the values in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The sum of the values in the range.
+     */
+    @Override
+    public int getSum(int left, int right) {
+        return this.sumTree.queryRange(left, right);
+    }
+
+    /**
+     * Returns the maximum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getMax(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.maxTree.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the minimum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getMin(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.minTree.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the sum of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getSum(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.sumTree.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Updates the value at the given index.
+     * @param index The index of the value to be updated.
+     * @param value The new value to be set at the given index.
+     */
+    @Override
+    public void update(int index, int value) {
+        this.numbers[index] = value;
+        this.maxTree.update(index, value);
+        this.minTree.update(index, value);
+        this.sumTree.update(index, value);
+    }
+}
@@ -0,0 +1,269 @@
+import java.util.Arrays;
+
+/**
+ * This abstract class represents a non-recursive segment tree implementation using an array.
+ * The leaves are stored in this.tree[n .. 2n-1] and every internal node i is the combination of
+ * its children 2i and 2i+1, so the whole tree takes exactly 2n slots (slot 0 is unused).
+ * Build, update and query are all loop based.
+ * The tree can grow with append: the leaves are then kept in this.tree[capacity .. 2*capacity-1], where the
+ * slots after the last element hold the neutral value, and the capacity is doubled when it runs out.
+ */
+public abstract class IterativeSegmentTreeByArray implements SegmentTree {
+
+    protected int[] tree;
+    protected int size;
+    protected int capacity;
+
+    /**
+     * Constructor for initializing the segment tree with the given input array.
+     * @param arr the input array
+     */
+    public IterativeSegmentTreeByArray(int[] arr) {
+        build(arr);
+    }
+
+    /**
+     * Builds the segment tree from the input array in linear time.
+     * The leaves are copied to the second half of this.tree and the internal nodes are filled bottom-up.
+     * @param arr the input array
+     */
+    @Override
+    public void build(int[] arr) {
+        this.size = arr.length;
+        this.capacity = arr.length;
+        this.tree = new int[2 * this.capacity];
+        System.arraycopy(arr, 0, this.tree, this.capacity, this.size);
+        for (int i = this.capacity - 1; i > 0; i--) {
+            this.tree[i] = combine(this.tree[2 * i], this.tree[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Helper function used to combine the values of two nodes according to the segment tree type.
+     * Implemented in the subclasses.
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the combined value
+     */
+    protected abstract int combine(int left, int right);
+
+    /**
+     * Returns the neutral value of combine (the value x for which combine(x, y) == y for every y).
+     * Implemented in the subclasses.
+     *
+     * @return the neutral value of the segment tree type
+     */
+    protected abstract int identity();
+
+    /**
+     * Updates the value at the specified index and walks up to the root, recomputing each ancestor once.
+     * @param index the index of the element to update in the array
+     * @param value the new value to replace the existing value
+     * @throws IndexOutOfBoundsException if index is not in [0, size-1]
+     */
+    @Override
+    public void update(int index, int value) {
+        if ((index < 0) || (index >= this.size)) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of [0, " + (this.size - 1) + "]");
+        }
+        int i = index + this.capacity;
+        this.tree[i] = value;
+        for (i = i >> 1; i > 0; i = i >> 1) {
+            this.tree[i] = combine(this.tree[2 * i], this.tree[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Updates several elements at once. All the leaves are written first, then the tree is fixed depth by depth,
+     * from the deepest dirty nodes up to the root, and every ancestor of an updated leaf is recomputed exactly once.
+     * When n is not a power of two the leaves sit at two depths, so the parents of the deeper nodes are merged
+     * with the dirty nodes that are already at their depth before that depth is recomputed.
+     * @param indices the indices of the elements to update in the array
+     * @param values the new values, values[i] is written to indices[i]
+     * @throws IndexOutOfBoundsException if an index is not in [0, size-1], nothing is written then
+     */
+    @Override
+    public void updateAll(int[] indices, int[] values) {
+        UpdateBatch batch = new UpdateBatch(indices, values, size());
+        // the dirty nodes in increasing order, which is also increasing depth
+        int[] dirty = new int[batch.length()];
+        int[] parents = new int[batch.length()];
+        int[] merged = new int[batch.length()];
+        int count = 0;
+        for (int i = 0; i < batch.length(); i++) {
+            int leaf = batch.index(i) + this.capacity;
+            this.tree[leaf] = batch.value(i);
+            if ((leaf > 1) && ((count == 0) || (dirty[count - 1] != leaf >> 1))) {
+                dirty[count++] = leaf >> 1; // the batch is sorted, so equal parents are next to each other
+            }
+        }
+        while (count > 0) {
+            // the deepest dirty nodes are the suffix of dirty from the first slot of their depth
+            int depthStart = Integer.highestOneBit(dirty[count - 1]);
+            int from = count;
+            while ((from > 0) && (dirty[from - 1] >= depthStart)) {
+                from--;
+            }
+            int parentCount = 0;
+            for (int i = from; i < count; i++) {
+                int node = dirty[i];
+                this.tree[node] = combine(this.tree[2 * node], this.tree[2 * node + 1]);
+                if ((node > 1) && ((parentCount == 0) || (parents[parentCount - 1] != node >> 1))) {
+                    parents[parentCount++] = node >> 1;
+                }
+            }
+            count = merge(dirty, from, parents, parentCount, merged);
+            int[] swap = dirty;
+            dirty = merged;
+            merged = swap;
+        }
+    }
+
+    /**
+     * Helper function that merges two increasing lists of nodes into one, keeping a node that is in both once.
+     * @param a the first list
+     * @param aCount the length of the first list
+     * @param b the second list
+     * @param bCount the length of the second list
+     * @param out receives the merged list
+     * @return the length of the merged list
+     */
+    private static int merge(int[] a, int aCount, int[] b, int bCount, int[] out) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while ((i < aCount) || (j < bCount)) {
+            int next;
+            if ((j == bCount) || ((i < aCount) && (a[i] <= b[j]))) {
+                next = a[i++];
+            } else {
+                next = b[j++];
+            }
+            if ((count == 0) || (out[count - 1] != next)) {
+                out[count++] = next;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds an element after the last one. Amortized O(log n): the capacity is doubled when it runs out,
+     * so the O(n) regrowth happens once every n appends.
+     * @param value the new element
+     */
+    public void append(int value) {
+        if (this.size == this.capacity) {
+            grow(Math.max(1, 2 * this.capacity));
+        }
+        update(this.size++, value);
+    }
+
+    /**
+     * Adds several elements after the last one. The new leaves are written first, then only the
+     * ancestors of the appended range are recomputed, level by level.
+     * @param values the new elements, in order
+     */
+    public void appendAll(int[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        int newSize = this.size + values.length;
+        if (newSize > this.capacity) {
+            grow(Math.max(newSize, 2 * this.capacity));
+        }
+        System.arraycopy(values, 0, this.tree, this.capacity + this.size, values.length);
+        int l = (this.capacity + this.size) >> 1;
+        int r = (this.capacity + newSize - 1) >> 1;
+        this.size = newSize;
+        while (r > 0) {
+            for (int i = Math.max(l, 1); i <= r; i++) {
+                this.tree[i] = combine(this.tree[2 * i], this.tree[2 * i + 1]);
+            }
+            l = l >> 1;
+            r = r >> 1;
+        }
+    }
+
+    /**
+     * Helper function that moves the tree to a larger capacity. The leaves are copied, the new slots get the
+     * neutral value and the internal nodes are rebuilt.
+     * @param newCapacity the new number of leaves
+     */
+    protected void grow(int newCapacity) {
+        int[] newTree = new int[2 * newCapacity];
+        System.arraycopy(this.tree, this.capacity, newTree, newCapacity, this.size);
+        Arrays.fill(newTree, newCapacity + this.size, 2 * newCapacity, identity());
+        for (int i = newCapacity - 1; i > 0; i--) {
+            newTree[i] = combine(newTree[2 * i], newTree[2 * i + 1]);
+        }
+        this.capacity = newCapacity;
+        this.tree = newTree;
+    }
+
+    /**
+     * Returns the number of elements the tree holds without growing.
+     * @return the capacity of the tree
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Queries the segment tree for a range of elements.
+     * Both borders climb up the tree together, and nodes that stick out of the range are combined on the way.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the result of the query operation
+     * @throws IndexOutOfBoundsException if [left, right] is not a non-empty range inside [0, size-1]
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        if ((left < 0) || (left > right) || (right >= this.size)) {
+            throw new IndexOutOfBoundsException("Range [" + left + ", " + right + "] is out of [0, " + (this.size - 1) + "]");
+        }
+        int result = identity();
+        int l = left + this.capacity;
+        int r = right + this.capacity + 1;
+        while (l < r) {
+            if ((l & 1) == 1) {
+                result = combine(result, this.tree[l]);
+                l++;
+            }
+            if ((r & 1) == 1) {
+                r--;
+                result = combine(result, this.tree[r]);
+            }
+            l = l >> 1;
+            r = r >> 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a string representation of the segment tree.
+     * The members of this.tree are printed according to their indexes in the array, starting from the root in index 1.
+     * After the tree has grown, the neutral values of the unused leaves are printed as well.
+     * For example, for the max tree of {10,15,55,15,9,12} " [ 55 55 15 55 12 10 15 55 15 9 12 ] " will be returned
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        StringBuilder daTree = new StringBuilder(" [");
+        for (int i = 1; i < this.tree.length; i++) {
+            daTree.append(' ').append(this.tree[i]);
+        }
+        daTree.append(" ] ");
+        return daTree.toString();
+    }
+
+    /**
+     * Returns the number of elements in the original array that the segment tree was built from.
+     *
+     * @return the size of the original array
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,162 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of non-negative long values (latencies in nanoseconds, node counts), in the style of
+ * HdrHistogram: every power of two is split into 32 linear sub-buckets, so any recorded value is known within
+ * about 3%, with a fixed 1888 counters for the whole long range. Recording is a few shifts and one atomic add.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // 32
+    private static final int BUCKETS = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + 2 * SUB_BUCKETS; // 1888
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     * @param value the value
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        this.counts.incrementAndGet(bucketOf(v));
+        this.count.increment();
+        this.sum.add(v);
+        this.max.accumulate(v);
+    }
+
+    /**
+     * Helper function that returns the bucket of a value.
+     * Values below 64 have a bucket each, larger values share a bucket with the values that have the same
+     * 6 highest bits.
+     * @param value a non-negative value
+     * @return the index of the bucket
+     */
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int)(value >>> shift);
+    }
+
+    /**
+     * Helper function that returns the highest value of a bucket.
+     * @param bucket the index of the bucket
+     * @return the largest value that is recorded in the bucket
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long top = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Clears all the recorded values. Values recorded at the same time may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.reset();
+        this.sum.reset();
+        this.max.reset();
+    }
+
+    /**
+     * Returns a copy of the recorded values, that does not change with later records.
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = this.counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, this.sum.sum(), this.max.get());
+    }
+
+    /**
+     * The recorded values at one point in time.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        // constructor
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         * @return the count
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Returns the mean of the recorded values.
+         * @return the mean, 0 if nothing was recorded
+         */
+        public double getMean() {
+            return (this.count == 0) ? 0 : (double)this.sum / this.count;
+        }
+
+        /**
+         * Returns the largest recorded value.
+         * @return the max, 0 if nothing was recorded
+         */
+        public long getMax() {
+            return this.max;
+        }
+
+        /**
+         * Returns the value below which the given percentage of the recorded values fall,
+         * rounded up to the top of its bucket (but never above the max).
+         * @param percentile between 0 and 100
+         * @return the value at the percentile, 0 if nothing was recorded
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (this.count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long)Math.ceil(this.count * Math.min(percentile, 100.0) / 100.0));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueOf(i), this.max);
+                }
+            }
+            return this.max;
+        }
+
+        /**
+         * Returns a summary of the snapshot.
+         * For example "count=3 mean=20.0 p50=15 p99=31 max=31"
+         * @return the summary
+         */
+        @Override
+        public String toString() {
+            return "count=" + this.count + " mean=" + getMean() + " p50=" + getValueAtPercentile(50)
+                + " p99=" + getValueAtPercentile(99) + " max=" + this.max;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A segment tree that writes every change to an {@link UpdateLog} before applying it to the wrapped tree.
+ * The changes are buffered by the log, and become durable on commit() (or when the log buffer fills up).
+ * checkpoint() saves a snapshot of the tree with the LSN of the log and empties the log. After a crash,
+ * UpdateLog.recover opens the last snapshot and replays the frames after it, which brings the tree back to its
+ * state at the last commit.
+ *
+ * Changes are checked against the size of the tree before they are logged, so a rejected change never reaches
+ * the log. Every change is logged and applied while holding the log's monitor, so when several threads change
+ * the tree (or several trees share the log) the order of the log is the order in which the changes were applied.
+ * Queries hold the same monitor, since the wrapped array and tree engines push lazy tags down while they query.
+ */
+public class LoggedSegmentTree implements SegmentTree {
+
+    protected final SegmentTree tree;
+    protected final UpdateLog log;
+
+    /**
+     * Constructs a logged view of the given tree. The tree must not be changed directly afterwards.
+     * @param tree the wrapped segment tree, in the state the log starts from
+     * @param log the log the changes are written to
+     */
+    public LoggedSegmentTree(SegmentTree tree, UpdateLog log) {
+        this.tree = tree;
+        this.log = log;
+    }
+
+    /**
+     * Rebuilds the segment tree from the given array of integers. The whole array is logged.
+     * @param arr the array of integers to build the segment tree from
+     */
+    @Override
+    public void build(int[] arr) {
+        synchronized (this.log) {
+            try {
+                this.log.logBuild(arr);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.tree.build(arr);
+        }
+    }
+
+    /**
+     * Queries the wrapped tree under the log's monitor, nothing is logged.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @return the result of the range query
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        synchronized (this.log) {
+            return this.tree.queryRange(left, right);
+        }
+    }
+
+    /**
+     * Answers the queries with the wrapped tree under the log's monitor, nothing is logged.
+     * @param lefts the left endpoints of the ranges (inclusive)
+     * @param rights the right endpoints of the ranges (inclusive)
+     * @param out receives the results, out[i] is the result of the range [lefts[i], rights[i]]
+     * @param pool the pool that runs the queries, or null to run them on the calling thread
+     */
+    @Override
+    public void queryRanges(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        synchronized (this.log) {
+            this.tree.queryRanges(lefts, rights, out, pool);
+        }
+    }
+
+    /**
+     * Logs the update and applies it to the wrapped tree.
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     * @throws IndexOutOfBoundsException if index is not in the tree, nothing is logged then
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    @Override
+    public void update(int index, int value) {
+        synchronized (this.log) {
+            checkIndex(index);
+            try {
+                this.log.logUpdate(index, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.tree.update(index, value);
+        }
+    }
+
+    /**
+     * Logs the updates as one record and applies them to the wrapped tree.
+     * @param indices the indices of the elements to update
+     * @param values the new values, values[i] is written to indices[i]
+     * @throws IndexOutOfBoundsException if one of the indices is not in the tree, nothing is logged then
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    @Override
+    public void updateAll(int[] indices, int[] values) {
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException("indices and values must have the same length");
+        }
+        synchronized (this.log) {
+            for (int index : indices) {
+                checkIndex(index);
+            }
+            try {
+                this.log.logUpdateAll(indices, values);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.tree.updateAll(indices, values);
+        }
+    }
+
+    /**
+     * Logs the range update and applies it to the wrapped tree.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param delta the value to add to every element in the range
+     * @throws IndexOutOfBoundsException if the range is empty or not in the tree, nothing is logged then
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    @Override
+    public void rangeAdd(int left, int right, int delta) {
+        synchronized (this.log) {
+            checkRange(left, right);
+            try {
+                this.log.logRange(left, right, delta, false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.tree.rangeAdd(left, right, delta);
+        }
+    }
+
+    /**
+     * Logs the range assignment and applies it to the wrapped tree.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param value the new value of every element in the range
+     * @throws IndexOutOfBoundsException if the range is empty or not in the tree, nothing is logged then
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    @Override
+    public void rangeAssign(int left, int right, int value) {
+        synchronized (this.log) {
+            checkRange(left, right);
+            try {
+                this.log.logRange(left, right, value, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.tree.rangeAssign(left, right, value);
+        }
+    }
+
+    /**
+     * Helper function that rejects an index outside the wrapped tree before it is logged.
+     * @param index the index of an element
+     * @throws IndexOutOfBoundsException if index is not in [0, size-1]
+     */
+    protected void checkIndex(int index) {
+        if ((index < 0) || (index >= this.tree.size())) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of [0, " + (this.tree.size() - 1) + "]");
+        }
+    }
+
+    /**
+     * Helper function that rejects a range that is empty or outside the wrapped tree before it is logged.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @throws IndexOutOfBoundsException if [left, right] is not a non-empty range inside [0, size-1]
+     */
+    protected void checkRange(int left, int right) {
+        if ((left < 0) || (left > right) || (right >= this.tree.size())) {
+            throw new IndexOutOfBoundsException("Range [" + left + ", " + right + "] is out of [0, " + (this.tree.size() - 1) + "]");
+        }
+    }
+
+    /**
+     * Makes all the changes so far durable.
+     * @throws IOException if the log cannot be written
+     */
+    public void commit() throws IOException {
+        this.log.commit();
+    }
+
+    /**
+     * Saves the wrapped tree to a snapshot file with the LSN of the log, then empties the log.
+     * No change can be logged in between, and a crash between the two steps is handled by the LSN.
+     * @param snapshot the snapshot file, replaced if it exists
+     * @return the LSN of the snapshot
+     * @throws IOException if the snapshot cannot be saved or the log cannot be truncated
+     * @throws IllegalArgumentException if the wrapped tree is not a SegmentTreeByArray or an OffHeapSegmentTreeByArray
+     */
+    public long checkpoint(Path snapshot) throws IOException {
+        synchronized (this.log) {
+            return this.log.checkpoint(lsn -> save(snapshot, lsn));
+        }
+    }
+
+    /**
+     * Helper function that saves the wrapped tree in the SegmentTreeFile format.
+     * @param snapshot the snapshot file
+     * @param lsn the LSN of the last log frame the tree contains
+     * @throws IOException if the file cannot be written
+     */
+    protected void save(Path snapshot, long lsn) throws IOException {
+        if (this.tree instanceof SegmentTreeByArray) {
+            SegmentTreeFile.save((SegmentTreeByArray)this.tree, snapshot, lsn);
+        } else if (this.tree instanceof OffHeapSegmentTreeByArray) {
+            SegmentTreeFile.save((OffHeapSegmentTreeByArray)this.tree, snapshot, lsn);
+        } else {
+            throw new IllegalArgumentException("Unsupported snapshot type: " + this.tree.getClass().getName());
+        }
+    }
+
+    /**
+     * Returns the number of elements in the wrapped tree.
+     * @return the size of the original array
+     */
+    @Override
+    public int size() {
+        synchronized (this.log) {
+            return this.tree.size();
+        }
+    }
+
+    /**
+     * Returns a string representation of the wrapped segment tree.
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        synchronized (this.log) {
+            return this.tree.toString();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+public class MaximumIterativeSegmentTreeByArray extends IterativeSegmentTreeByArray {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public MaximumIterativeSegmentTreeByArray(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Helper function used to combine two nodes based on their max value
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the max value of the two nodes
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return Math.max(left, right);
+    }
+
+    /**
+     * Returns the neutral value of the max operation.
+     *
+     * @return Integer.MIN_VALUE
+     */
+    @Override
+    protected int identity() {
+        return Integer.MIN_VALUE;
+    }
+}
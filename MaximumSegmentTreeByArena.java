@@ -0,0 +1,47 @@
+public class MaximumSegmentTreeByArena extends SegmentTreeByArena {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public MaximumSegmentTreeByArena(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Queries the Segment Tree for the Maximum value in the given range.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Maximum value in the given range
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        return queryMax(left, right);
+    }
+
+    /**
+     * Returns a string representation of the segment tree.
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        String maxTree = " [";
+        return traverse_preorder(this.root, maxTree) +" ] ";
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses a tree from a given node and writes/logs the nodes' max in the taken path pre-order.
+     *
+     * @param node id of the starting node (current node recursively)
+     */
+    protected String traverse_preorder(int node, String st) {
+        if (node == NO_CHILD) {
+            return st;
+        }
+        st = st+" " + String.valueOf(getMax(node));
+        st = traverse_preorder(getLeft(node), st);
+        st = traverse_preorder(getRight(node), st);
+        return st;
+    }
+}
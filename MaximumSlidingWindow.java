@@ -0,0 +1,22 @@
+public class MaximumSlidingWindow extends SlidingWindow {
+
+    /**
+     * Constructor for creating an empty window over a MaximumSegmentTreeByArray
+     * @param capacity the number of newest values the window keeps
+     */
+    public MaximumSlidingWindow(int capacity){
+        super(new MaximumSegmentTreeByArray(new int[capacity]));
+    }
+
+    /**
+     * Helper function used to combine the two parts of a wrapped range by their max value
+     *
+     * @param older the result of the older part
+     * @param newer the result of the newer part
+     * @return the max of the two results
+     */
+    @Override
+    protected int combine(int older, int newer) {
+        return Math.max(older, newer);
+    }
+}
@@ -0,0 +1,22 @@
+public class MaximumSparseTable extends SparseTable {
+
+    /**
+     * Constructor for creating a sparse table from an input array
+     * @param arr Input array for which the table needs to be constructed
+     */
+    public MaximumSparseTable(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Helper function used to combine two values based on their max value
+     *
+     * @param left the first value
+     * @param right the second value
+     * @return the max value of the two values
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return Math.max(left, right);
+    }
+}
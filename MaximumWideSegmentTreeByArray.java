@@ -0,0 +1,48 @@
+public class MaximumWideSegmentTreeByArray extends WideSegmentTreeByArray {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public MaximumWideSegmentTreeByArray(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Helper function used to combine a block of slots based on their max value
+     *
+     * @param acc the value combined so far
+     * @param from the first slot (inclusive)
+     * @param to the last slot (exclusive)
+     * @return the max value of acc and the slots
+     */
+    @Override
+    protected int scan(int acc, int from, int to) {
+        for (int i = from; i < to; i++) {
+            acc = Math.max(acc, this.tree[i]);
+        }
+        return acc;
+    }
+
+    /**
+     * Helper function used to combine two nodes based on their max value
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the max value of the two nodes
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return Math.max(left, right);
+    }
+
+    /**
+     * Returns the neutral value of the max operation.
+     *
+     * @return Integer.MIN_VALUE
+     */
+    @Override
+    protected int identity() {
+        return Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,60 @@
+public class MinimumDynamicSegmentTreeByTree extends DynamicSegmentTreeByTree {
+
+    /**
+     * Constructor for creating an empty dynamic Segment Tree, where every index of [low, high] has the default value
+     * @param low the first index (inclusive)
+     * @param high the last index (inclusive)
+     * @param defaultValue the value of every index that was never updated
+     */
+    public MinimumDynamicSegmentTreeByTree(long low, long high, int defaultValue){
+        super(low, high, defaultValue);
+    }
+
+    /**
+     * Constructor for creating a dynamic Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     * @param defaultValue the value of every index that was never updated
+     */
+    public MinimumDynamicSegmentTreeByTree(int[] arr, int defaultValue){
+        super(arr, defaultValue);
+    }
+
+    /**
+     * Queries the Segment Tree for the minimum value in the given range.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Minimum value in the given range
+     */
+    @Override
+    public long queryRange(long left, long right) {
+        return queryMin(left, right);
+    }
+
+    /**
+     * Returns a string representation of the segment tree, with the min of every created node pre-order.
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        String minTree = " [";
+        return traverse_preorder(this.root, minTree) +" ] ";
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses a tree from a given node and writes/logs the nodes' min in the taken path pre-order.
+     *
+     * @param node starting node (current node recursively)
+     * @param st the string written so far
+     * @return the string with the subtree of node appended
+     */
+    protected String traverse_preorder(DynamicSegmentTreeNode node, String st) {
+        if (node == null) {
+            return st;
+        }
+        st = st+" " + String.valueOf(node.getMin());
+        st = traverse_preorder((DynamicSegmentTreeNode)node.leftChild, st);
+        st = traverse_preorder((DynamicSegmentTreeNode)node.rightChild, st);
+        return st;
+    }
+}
@@ -0,0 +1,32 @@
+public class MinimumIterativeSegmentTreeByArray extends IterativeSegmentTreeByArray {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public MinimumIterativeSegmentTreeByArray(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Helper function used to combine two nodes based on their min value
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the min value of the two nodes
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return Math.min(left, right);
+    }
+
+    /**
+     * Returns the neutral value of the min operation.
+     *
+     * @return Integer.MAX_VALUE
+     */
+    @Override
+    protected int identity() {
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,64 @@
+import java.nio.ByteBuffer;
+import java.util.function.LongToIntFunction;
+
+public class MinimumOffHeapSegmentTreeByArray extends OffHeapSegmentTreeByArray {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public MinimumOffHeapSegmentTreeByArray(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Constructor for creating a Segment Tree with length elements, element i being values(i)
+     * @param length the number of elements
+     * @param values returns the initial value of every index
+     */
+    public MinimumOffHeapSegmentTreeByArray(long length, LongToIntFunction values){
+        super(length, values);
+    }
+
+    /**
+     * Constructor for creating a Segment Tree with length elements, with a given buffer size
+     * @param length the number of elements
+     * @param values returns the initial value of every index
+     * @param chunkShift log2 of the number of ints in every buffer
+     */
+    public MinimumOffHeapSegmentTreeByArray(long length, LongToIntFunction values, int chunkShift){
+        super(length, values, chunkShift);
+    }
+
+    /**
+     * Constructor for a Segment Tree over buffers that already hold a built tree, used by SegmentTreeFile
+     * @param buffers the buffers holding the slots
+     * @param length the number of elements
+     * @param chunkShift log2 of the number of ints in every buffer
+     */
+    protected MinimumOffHeapSegmentTreeByArray(ByteBuffer[] buffers, long length, int chunkShift){
+        super(buffers, length, chunkShift);
+    }
+
+    /**
+     * Helper function used to combine two nodes based on their min value
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the min value of the two nodes
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return Math.min(left, right);
+    }
+
+    /**
+     * Returns the neutral value of the min operation.
+     *
+     * @return Integer.MAX_VALUE
+     */
+    @Override
+    protected int identity() {
+        return Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,22 @@
+public class MinimumPersistentSegmentTreeByTree extends PersistentSegmentTreeByTree {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public MinimumPersistentSegmentTreeByTree(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Queries the Segment Tree for the Minimum value in the given range, as it was in the given version.
+     * @param version the version number
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Minimum value in the given range of the given version
+     */
+    @Override
+    public int queryRange(int version, int left, int right) {
+        return queryMinHelper(getRoot(version), left, right);
+    }
+}
@@ -0,0 +1,47 @@
+public class MinimumSegmentTreeByArena extends SegmentTreeByArena {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public MinimumSegmentTreeByArena(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Queries the Segment Tree for the Minimum value in the given range.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Minimum value in the given range
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        return queryMin(left, right);
+    }
+
+    /**
+     * Returns a string representation of the segment tree.
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        String minTree = " [";
+        return traverse_preorder(this.root, minTree) +" ] ";
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses a tree from a given node and writes/logs the nodes' min in the taken path pre-order.
+     *
+     * @param node id of the starting node (current node recursively)
+     */
+    protected String traverse_preorder(int node, String st) {
+        if (node == NO_CHILD) {
+            return st;
+        }
+        st = st+" " + String.valueOf(getMin(node));
+        st = traverse_preorder(getLeft(node), st);
+        st = traverse_preorder(getRight(node), st);
+        return st;
+    }
+}
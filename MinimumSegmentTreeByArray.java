@@ -1,3 +1,5 @@
+import java.util.concurrent.ForkJoinPool;
+
 public class MinimumSegmentTreeByArray extends SegmentTreeByArray {
     
     /**
@@ -8,6 +10,16 @@ public class MinimumSegmentTreeByArray extends SegmentTreeByArray {
         super(arr);
     }
 
+    /**
+     * Constructor for creating a Segment Tree from an input array, built in parallel
+     * @param arr Input array for which Segment Tree needs to be constructed
+     * @param pool the pool that runs the build tasks
+     * @param threshold the maximal segment length that is built by a single task
+     */
+    public MinimumSegmentTreeByArray(int[] arr, ForkJoinPool pool, int threshold){
+        super(arr, pool, threshold);
+    }
+
 
     /**
      * Recursivly builds the tree in this.tree . 
@@ -51,6 +63,30 @@ public class MinimumSegmentTreeByArray extends SegmentTreeByArray {
         this.tree[nodeIdx] = Math.min(this.tree[nodeIdx*2 + 1], this.tree[nodeIdx*2 + 2]);
     }
 
+    /**
+     * Helper function used to add delta to every element under a node. Updates the node's min value.
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param delta the value added to every element in the segment
+     * @param length the number of elements in the segment
+     */
+    @Override
+    protected void addToNode(int nodeIdx, int delta, int length) {
+        this.tree[nodeIdx] = this.tree[nodeIdx] + delta;
+    }
+
+    /**
+     * Helper function used to set every element under a node to value. Updates the node's min value.
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param value the new value of every element in the segment
+     * @param length the number of elements in the segment
+     */
+    @Override
+    protected void assignToNode(int nodeIdx, int value, int length) {
+        this.tree[nodeIdx] = value;
+    }
+
     /**
      * Queries the Segment Tree for the minimum value.
      * @param node the current node 
@@ -66,10 +102,14 @@ public class MinimumSegmentTreeByArray extends SegmentTreeByArray {
         int rightNode; 
         int newNode;
 
+        if (Instrumentation.ENABLED) {
+            Instrumentation.visitNode();
+        }
         if ((start >= left) && (end <= right)) {
             return this.tree[node];
         }
 
+        pushDown(node, start, end);
         int mid = getMidpoint(start, end);
 
         if (right <= mid) {
@@ -77,6 +117,9 @@ public class MinimumSegmentTreeByArray extends SegmentTreeByArray {
         } else if (left > mid) {
             newNode = query(node*2 + 2, mid+1, end, left, right);  // go right
         } else { // part left part right
+            if (Instrumentation.ENABLED) {
+                Instrumentation.splitQuery();
+            }
             leftNode = query(node*2 + 1, start, mid, left, right);
             rightNode = query(node*2 + 2, mid+1, end, left, right);
 
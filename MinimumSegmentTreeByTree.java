@@ -1,3 +1,5 @@
+import java.util.concurrent.ForkJoinPool;
+
 public class MinimumSegmentTreeByTree extends SegmentTreeByTree {
     
     /**
@@ -8,6 +10,16 @@ public class MinimumSegmentTreeByTree extends SegmentTreeByTree {
         super(arr);
     }
 
+    /**
+     * Constructor for creating a Segment Tree from an input array, built in parallel
+     * @param arr Input array for which Segment Tree needs to be constructed
+     * @param pool the pool that runs the build tasks
+     * @param threshold the maximal segment length that is built by a single task
+     */
+    public MinimumSegmentTreeByTree(int[] arr, ForkJoinPool pool, int threshold){
+        super(arr, pool, threshold);
+    }
+
     /**
      * Queries the Segment Tree for the Minimum value in the given range.
      * @param left Start index of the query range
@@ -16,7 +28,7 @@ public class MinimumSegmentTreeByTree extends SegmentTreeByTree {
      */
     @Override
     public int queryRange(int left, int right) {
-        return queryRangeHelper(this.root, left, right).getMin();
+        return queryMin(left, right);
     }
 
     @Override
@@ -0,0 +1,22 @@
+public class MinimumSlidingWindow extends SlidingWindow {
+
+    /**
+     * Constructor for creating an empty window over a MinimumSegmentTreeByArray
+     * @param capacity the number of newest values the window keeps
+     */
+    public MinimumSlidingWindow(int capacity){
+        super(new MinimumSegmentTreeByArray(new int[capacity]));
+    }
+
+    /**
+     * Helper function used to combine the two parts of a wrapped range by their min value
+     *
+     * @param older the result of the older part
+     * @param newer the result of the newer part
+     * @return the min of the two results
+     */
+    @Override
+    protected int combine(int older, int newer) {
+        return Math.min(older, newer);
+    }
+}
@@ -0,0 +1,48 @@
+public class MinimumWideSegmentTreeByArray extends WideSegmentTreeByArray {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public MinimumWideSegmentTreeByArray(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Helper function used to combine a block of slots based on their min value
+     *
+     * @param acc the value combined so far
+     * @param from the first slot (inclusive)
+     * @param to the last slot (exclusive)
+     * @return the min value of acc and the slots
+     */
+    @Override
+    protected int scan(int acc, int from, int to) {
+        for (int i = from; i < to; i++) {
+            acc = Math.min(acc, this.tree[i]);
+        }
+        return acc;
+    }
+
+    /**
+     * Helper function used to combine two nodes based on their min value
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the min value of the two nodes
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return Math.min(left, right);
+    }
+
+    /**
+     * Returns the neutral value of the min operation.
+     *
+     * @return Integer.MAX_VALUE
+     */
+    @Override
+    protected int identity() {
+        return Integer.MAX_VALUE;
+    }
+}
@@ -1,5 +1,6 @@
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  The NumberAnalyzer class provides an abstract implementation for analyzing a collection of integers.
@@ -27,21 +28,25 @@ public abstract class NumberAnalyzer implements Iterable<Integer>, Comparator<In
      * In addition, in this method, even numbers are always considered to be bigger than odd numbers.
      */
     public int compare(Integer num1, Integer num2) {  
-        if ((isEven(num1) && isEven(num2)) || (!isEven(num1) && !isEven(num2))) {
-            if (num2 < num1) {
-                return 1;
-            } else if (num1 < num2) {
-                return -1;
-            } else { // num1 == num2
-                return 0;
-            }
-        } else if (isEven(num1)) {
-            return 1;
-        } else { // (isEven(num2))
-            return -1;
-        }
-     }
+        return compareByParity(num1, num2);
+    }
 
+    /**
+     * The order of compare on primitive ints, so the segment trees can use it without boxing.
+     * Even numbers are always bigger than odd numbers, and numbers of the same parity are compared by value.
+     *
+     * @param num1 First number
+     * @param num2 Second number
+     * @return 1 if num1 is bigger than num2, 0 if they're equal and -1 if num2 is bigger than num1.
+     */
+    public static int compareByParity(int num1, int num2) {
+        boolean even1 = (num1 % 2) == 0;
+        boolean even2 = (num2 % 2) == 0;
+        if (even1 == even2) {
+            return Integer.compare(num1, num2);
+        }
+        return even1 ? 1 : -1;
+    }
 
     /**
      * Helper function. Used to determine wether a number is and even number or not (odd)
@@ -123,6 +128,141 @@ public abstract class NumberAnalyzer implements Iterable<Integer>, Comparator<In
      */
     public abstract void update(int index, int value);
 
+    /**
+     * Returns the maximum value of many ranges at once. out[i] receives getMax(lefts[i], rights[i]).
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     */
+    public void getMax(int[] lefts, int[] rights, int[] out) {
+        getMax(lefts, rights, out, null);
+    }
+
+    /**
+     * Returns the maximum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    public void getMax(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        SegmentTree.queryAll((left, right) -> getMax(left, right), lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the minimum value of many ranges at once. out[i] receives getMin(lefts[i], rights[i]).
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     */
+    public void getMin(int[] lefts, int[] rights, int[] out) {
+        getMin(lefts, rights, out, null);
+    }
+
+    /**
+     * Returns the minimum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    public void getMin(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        SegmentTree.queryAll((left, right) -> getMin(left, right), lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the sum of many ranges at once. out[i] receives getSum(lefts[i], rights[i]).
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     */
+    public void getSum(int[] lefts, int[] rights, int[] out) {
+        getSum(lefts, rights, out, null);
+    }
+
+    /**
+     * Returns the sum of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    public void getSum(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        SegmentTree.queryAll((left, right) -> getSum(left, right), lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the biggest value in the given range under the order of compare (even numbers above odd numbers).
+     * By default it scans the range, subclasses that keep a ParitySegmentTreeByArray override it.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The biggest value in the range by compare.
+     */
+    public int getMaxByComparator(int left, int right) {
+        int best = this.numbers[left];
+        for (int i = left + 1; i <= right; i++) {
+            if (compareByParity(this.numbers[i], best) > 0) {
+                best = this.numbers[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the smallest value in the given range under the order of compare (odd numbers below even numbers).
+     * By default it scans the range, subclasses that keep a ParitySegmentTreeByArray override it.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The smallest value in the range by compare.
+     */
+    public int getMinByComparator(int left, int right) {
+        int best = this.numbers[left];
+        for (int i = left + 1; i <= right; i++) {
+            if (compareByParity(this.numbers[i], best) < 0) {
+                best = this.numbers[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of even values in the given range.
+     * By default it scans the range, subclasses that keep a ParitySegmentTreeByArray override it.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The number of even values in the range.
+     */
+    public int countEven(int left, int right) {
+        int count = 0;
+        for (int i = left; i <= right; i++) {
+            if (isEven(this.numbers[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of odd values in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The number of odd values in the range.
+     */
+    public int countOdd(int left, int right) {
+        return (right - left + 1) - countEven(left, right);
+    }
+
+    /**
+     * Returns the minimum, maximum and sum of the values in the given range.
+     * By default it runs the three range queries, subclasses that keep the aggregates together override it.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return A SegmentTreeNode that contains the minimum, maximum and sum values for the given range.
+     */
+    public SegmentTreeNode getStats(int left, int right) {
+        return new SegmentTreeNode(left, right, getMin(left, right), getMax(left, right), getSum(left, right), null, null);
+    }
+
 
 
 }
\ No newline at end of file
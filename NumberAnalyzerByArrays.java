@@ -1,9 +1,12 @@
+import java.util.concurrent.ForkJoinPool;
+
 public class NumberAnalyzerByArrays extends NumberAnalyzer {
     protected Integer[] numbers;
     protected int[] numbersArr;
     protected MaximumSegmentTreeByArray maxTree;
     protected MinimumSegmentTreeByArray minTree;
-    protected SummationSegmentTreeByArray sumTree;
+    protected SegmentTree sumTree;
+    protected ParitySegmentTreeByArray parityTree; // built on the first comparator or parity query
     protected int i;
 
     /**
@@ -11,6 +14,15 @@ public class NumberAnalyzerByArrays extends NumberAnalyzer {
      * @param numbers The array of integers to be analyzed.
      */
     public NumberAnalyzerByArrays(Integer[] numbers) {
+        this(numbers, false);
+    }
+
+    /**
+     * Constructs a new NumberAnalyzer object with the given array of integers.
+     * @param numbers The array of integers to be analyzed.
+     * @param fenwickSum true to answer getSum with a SummationFenwickTree (n+1 ints) instead of a SummationSegmentTreeByArray.
+     */
+    public NumberAnalyzerByArrays(Integer[] numbers, boolean fenwickSum) {
         super(numbers);
         this.numbers = numbers;
         // Save number Integer[] as int[] to be compatible with SegmentTree class
@@ -21,7 +33,11 @@ public class NumberAnalyzerByArrays extends NumberAnalyzer {
         
         this.maxTree = new MaximumSegmentTreeByArray(this.numbersArr);
         this.minTree = new MinimumSegmentTreeByArray(this.numbersArr);
-        this.sumTree = new SummationSegmentTreeByArray(this.numbersArr);
+        if (fenwickSum) {
+            this.sumTree = new SummationFenwickTree(this.numbersArr);
+        } else {
+            this.sumTree = new SummationSegmentTreeByArray(this.numbersArr);
+        }
     }
 
     /**
@@ -54,6 +70,98 @@ public class NumberAnalyzerByArrays extends NumberAnalyzer {
         return this.sumTree.queryRange(left, right);
     }
 
+    /**
+     * Returns the maximum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getMax(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.maxTree.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the minimum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getMin(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.minTree.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the sum of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getSum(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.sumTree.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Helper function that returns the parity tree, and builds it from numbersArr on the first call.
+     * Analyzers that never ask for the comparator order or the parity counts do not pay for it.
+     * @return the parity tree of the current values
+     */
+    protected ParitySegmentTreeByArray parityTree() {
+        if (this.parityTree == null) {
+            this.parityTree = new ParitySegmentTreeByArray(this.numbersArr);
+        }
+        return this.parityTree;
+    }
+
+    /**
+     * Returns the biggest value in the given range under the order of compare (even numbers above odd numbers).
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The biggest value in the range by compare.
+     */
+    @Override
+    public int getMaxByComparator(int left, int right) {
+        return parityTree().getMaxByComparator(left, right);
+    }
+
+    /**
+     * Returns the smallest value in the given range under the order of compare (odd numbers below even numbers).
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The smallest value in the range by compare.
+     */
+    @Override
+    public int getMinByComparator(int left, int right) {
+        return parityTree().getMinByComparator(left, right);
+    }
+
+    /**
+     * Returns the number of even values in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The number of even values in the range.
+     */
+    @Override
+    public int countEven(int left, int right) {
+        return parityTree().countEven(left, right);
+    }
+
+    /**
+     * Returns the number of odd values in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The number of odd values in the range.
+     */
+    @Override
+    public int countOdd(int left, int right) {
+        return parityTree().countOdd(left, right);
+    }
+
     /**
      * Updates the value at the given index.
      * @param index The index of the value to be updated.
@@ -65,5 +173,8 @@ public class NumberAnalyzerByArrays extends NumberAnalyzer {
         this.maxTree.update(index, value);
         this.minTree.update(index, value);
         this.sumTree.update(index, value);
+        if (this.parityTree != null) {
+            this.parityTree.update(index, value);
+        }
     }
 }
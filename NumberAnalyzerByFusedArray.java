@@ -0,0 +1,72 @@
+public class NumberAnalyzerByFusedArray extends NumberAnalyzer {
+    protected int[] numbersArr;
+    protected FusedSegmentTreeByArray statsTree;
+
+    /**
+     * Constructs a new NumberAnalyzer object with the given array of integers.
+     * A single FusedSegmentTreeByArray answers the min, max and sum queries.
+     * @param numbers The array of integers to be analyzed.
+     */
+    public NumberAnalyzerByFusedArray(Integer[] numbers) {
+        super(numbers);
+        // Save number Integer[] as int[] to be compatible with SegmentTree class
+        this.numbersArr = new int[numbers.length];
+        for (int i = 0; i <= numbers.length - 1 ; i++) {
+            this.numbersArr[i] = numbers[i].intValue();
+        }
+
+        this.statsTree = new FusedSegmentTreeByArray(this.numbersArr);
+    }
+
+    /**
+     * Returns the maximum value in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The maximum value in the range.
+     */
+    public Integer getMax(int left, int right) {
+        return this.statsTree.getMax(left, right);
+    }
+
+    /**
+     * Returns the minimum value in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The minimum value in the range.
+     */
+    public Integer getMin(int left, int right) {
+        return this.statsTree.getMin(left, right);
+    }
+
+    /**
+     * Returns the sum of the values in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The sum of the values in the range.
+     */
+    public Integer getSum(int left, int right) {
+        return this.statsTree.getSum(left, right);
+    }
+
+    /**
+     * Returns the minimum, maximum and sum of the values in the given range with a single tree walk.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return A SegmentTreeNode that contains the minimum, maximum and sum values for the given range.
+     */
+    @Override
+    public SegmentTreeNode getStats(int left, int right) {
+        return this.statsTree.getStats(left, right);
+    }
+
+    /**
+     * Updates the value at the given index.
+     * @param index The index of the value to be updated.
+     * @param value The new value to be set at the given index.
+     */
+    public void update(int index, int value) {
+        this.numbers[index] = value;
+        this.numbersArr[index] = value;
+        this.statsTree.update(index, value);
+    }
+}
@@ -0,0 +1,72 @@
+public class NumberAnalyzerBySharedTree extends NumberAnalyzer {
+    protected int[] numbersArr;
+    protected SegmentTreeByTree tree;
+
+    /**
+     * Constructs a new NumberAnalyzer object with the given array of integers.
+     * Every SegmentTreeNode already holds min, max and sum, so one node tree serves all three queries.
+     * @param numbers The array of integers to be analyzed.
+     */
+    public NumberAnalyzerBySharedTree(Integer[] numbers) {
+        super(numbers);
+        // Save number Integer[] as int[] to be compatible with SegmentTree class
+        this.numbersArr = new int[numbers.length];
+        for (int i = 0; i <= numbers.length - 1 ; i++) {
+            this.numbersArr[i] = numbers[i].intValue();
+        }
+
+        this.tree = new SummationSegmentTreeByTree(this.numbersArr);
+    }
+
+    /**
+     * Returns the maximum value in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The maximum value in the range.
+     */
+    public Integer getMax(int left, int right) {
+        return this.tree.queryMax(left, right);
+    }
+
+    /**
+     * Returns the minimum value in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The minimum value in the range.
+     */
+    public Integer getMin(int left, int right) {
+        return this.tree.queryMin(left, right);
+    }
+
+    /**
+     * Returns the sum of the values in the given range.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return The sum of the values in the range.
+     */
+    public Integer getSum(int left, int right) {
+        return this.tree.querySum(left, right);
+    }
+
+    /**
+     * Returns the minimum, maximum and sum of the values in the given range with a single tree walk.
+     * @param left The left endpoint of the range (inclusive).
+     * @param right The right endpoint of the range (inclusive).
+     * @return A SegmentTreeNode that contains the minimum, maximum and sum values for the given range.
+     */
+    @Override
+    public SegmentTreeNode getStats(int left, int right) {
+        return this.tree.queryStats(left, right);
+    }
+
+    /**
+     * Updates the value at the given index.
+     * @param index The index of the value to be updated.
+     * @param value The new value to be set at the given index.
+     */
+    public void update(int index, int value) {
+        this.numbers[index] = value;
+        this.numbersArr[index] = value;
+        this.tree.update(index, value);
+    }
+}
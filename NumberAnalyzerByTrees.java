@@ -1,3 +1,5 @@
+import java.util.concurrent.ForkJoinPool;
+
 public class NumberAnalyzerByTrees extends NumberAnalyzer {
     protected Integer[] numbers;
     protected int[] numbersArr;
@@ -54,6 +56,42 @@ public class NumberAnalyzerByTrees extends NumberAnalyzer {
         return this.sumTree.queryRange(left, right);
     }
 
+    /**
+     * Returns the maximum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getMax(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.maxTree.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the minimum value of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getMin(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.minTree.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Returns the sum of many ranges at once, split across the threads of the given pool.
+     * @param lefts The left endpoints of the ranges (inclusive).
+     * @param rights The right endpoints of the ranges (inclusive).
+     * @param out The array that receives the results, at least as long as lefts.
+     * @param pool The pool that runs the queries, or null to run them on the calling thread.
+     */
+    @Override
+    public void getSum(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        this.sumTree.queryRanges(lefts, rights, out, pool);
+    }
+
     /**
      * Updates the value at the given index.
      * @param index The index of the value to be updated.
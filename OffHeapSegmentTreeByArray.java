@@ -0,0 +1,297 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.function.LongToIntFunction;
+
+/**
+ * This abstract class represents a non-recursive segment tree whose nodes are stored outside the Java heap.
+ * The layout is the one of {@link IterativeSegmentTreeByArray}: the leaves are in slots [n .. 2n-1] and every
+ * internal node i is the combination of 2i and 2i+1. The slots are kept in direct buffers of 2^chunkShift ints
+ * each, so a slot is addressed by a long and the tree can hold more than Integer.MAX_VALUE elements.
+ * The GC only sees the small buffer objects, and the memory is released when the tree is no longer referenced.
+ * Direct buffers still count against -XX:MaxDirectMemorySize, which defaults to the maximum heap size (-Xmx), so a
+ * tree bigger than the heap needs that limit raised, or an OutOfMemoryError is thrown when its buffers are allocated.
+ */
+public abstract class OffHeapSegmentTreeByArray implements SegmentTree {
+
+    protected static final int DEFAULT_CHUNK_SHIFT = 27; // 2^27 ints = 512MB per buffer
+    protected static final int MAX_CHUNK_SHIFT = 28; // 2^28 ints = 1GB, the biggest power of two a buffer can hold
+
+    protected final int chunkShift;
+    protected final long chunkMask;
+    protected ByteBuffer[] buffers;
+    protected IntBuffer[] chunks;
+    protected long size;
+
+    /**
+     * Constructor for initializing the segment tree with the given input array.
+     * @param arr the input array
+     */
+    public OffHeapSegmentTreeByArray(int[] arr) {
+        this(arr.length, i -> arr[(int)i], DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Constructor for initializing the segment tree with length elements, element i being values(i).
+     * @param length the number of elements
+     * @param values returns the initial value of every index
+     */
+    public OffHeapSegmentTreeByArray(long length, LongToIntFunction values) {
+        this(length, values, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Constructor for initializing the segment tree with length elements, with a given buffer size.
+     * @param length the number of elements
+     * @param values returns the initial value of every index
+     * @param chunkShift log2 of the number of ints in every buffer, in [1, MAX_CHUNK_SHIFT]
+     * @throws IllegalArgumentException if chunkShift is out of [1, MAX_CHUNK_SHIFT]
+     */
+    protected OffHeapSegmentTreeByArray(long length, LongToIntFunction values, int chunkShift) {
+        checkChunkShift(chunkShift);
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        build(length, values);
+    }
+
+    /**
+     * Constructor for a segment tree over existing buffers that already hold the 2n slots of a built tree,
+     * for example the mapped regions of a {@link SegmentTreeFile}. Nothing is rebuilt.
+     * @param buffers the buffers holding the slots, all but the last of 2^chunkShift ints
+     * @param length the number of elements
+     * @param chunkShift log2 of the number of ints in every buffer, in [1, MAX_CHUNK_SHIFT]
+     * @throws IllegalArgumentException if chunkShift is out of [1, MAX_CHUNK_SHIFT]
+     */
+    protected OffHeapSegmentTreeByArray(ByteBuffer[] buffers, long length, int chunkShift) {
+        checkChunkShift(chunkShift);
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.size = length;
+        this.buffers = buffers;
+        this.chunks = new IntBuffer[buffers.length];
+        for (int c = 0; c < buffers.length; c++) {
+            this.chunks[c] = buffers[c].asIntBuffer();
+        }
+    }
+
+    /**
+     * Helper function that rejects a buffer size that is too small to split, or too big for a ByteBuffer.
+     * @param chunkShift log2 of the number of ints in every buffer
+     * @throws IllegalArgumentException if chunkShift is out of [1, MAX_CHUNK_SHIFT]
+     */
+    protected static void checkChunkShift(int chunkShift) {
+        if ((chunkShift < 1) || (chunkShift > MAX_CHUNK_SHIFT)) {
+            throw new IllegalArgumentException("chunkShift " + chunkShift + " is out of [1, " + MAX_CHUNK_SHIFT + "]");
+        }
+    }
+
+    /**
+     * Builds the segment tree from the input array in linear time.
+     * @param arr the input array
+     */
+    @Override
+    public void build(int[] arr) {
+        build(arr.length, i -> arr[(int)i]);
+    }
+
+    /**
+     * Builds the segment tree with length elements in linear time.
+     * The leaves are written to the second half of the slots and the internal nodes are filled bottom-up.
+     * The tree always gets new direct buffers, so a tree opened from a file is detached from it.
+     * @param length the number of elements
+     * @param values returns the initial value of every index
+     */
+    public void build(long length, LongToIntFunction values) {
+        this.size = length;
+        allocate(2 * length);
+        fill(values);
+    }
+
+    /**
+     * Helper function that writes all the slots of the current buffers: the leaves first, then the internal nodes bottom-up.
+     * @param values returns the value of every index
+     */
+    protected void fill(LongToIntFunction values) {
+        for (long i = 0; i < this.size; i++) {
+            set(this.size + i, values.applyAsInt(i));
+        }
+        for (long i = this.size - 1; i > 0; i--) {
+            set(i, combine(get(2 * i), get(2 * i + 1)));
+        }
+    }
+
+    /**
+     * Helper function that allocates direct buffers for the given number of slots.
+     * Only the last buffer is smaller than 2^chunkShift ints.
+     * @param slots the number of slots
+     */
+    protected void allocate(long slots) {
+        long chunkInts = 1L << this.chunkShift;
+        int count = (int)((slots + chunkInts - 1) >> this.chunkShift);
+        this.buffers = new ByteBuffer[count];
+        this.chunks = new IntBuffer[count];
+        for (int c = 0; c < count; c++) {
+            long ints = Math.min(chunkInts, slots - c * chunkInts);
+            this.buffers[c] = ByteBuffer.allocateDirect((int)ints * Integer.BYTES).order(ByteOrder.nativeOrder());
+            this.chunks[c] = this.buffers[c].asIntBuffer();
+        }
+    }
+
+    /**
+     * Helper function that reads a slot.
+     * @param slot the index of the slot
+     * @return the value of the slot
+     */
+    protected int get(long slot) {
+        return this.chunks[(int)(slot >>> this.chunkShift)].get((int)(slot & this.chunkMask));
+    }
+
+    /**
+     * Helper function that writes a slot.
+     * @param slot the index of the slot
+     * @param value the new value of the slot
+     */
+    protected void set(long slot, int value) {
+        this.chunks[(int)(slot >>> this.chunkShift)].put((int)(slot & this.chunkMask), value);
+    }
+
+    /**
+     * Helper function used to combine the values of two nodes according to the segment tree type.
+     * Implemented in the subclasses.
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the combined value
+     */
+    protected abstract int combine(int left, int right);
+
+    /**
+     * Returns the neutral value of combine (the value x for which combine(x, y) == y for every y).
+     * Implemented in the subclasses.
+     *
+     * @return the neutral value of the segment tree type
+     */
+    protected abstract int identity();
+
+    /**
+     * Updates the value at the specified index and walks up to the root, recomputing each ancestor once.
+     * @param index the index of the element to update in the array
+     * @param value the new value to replace the existing value
+     */
+    @Override
+    public void update(int index, int value) {
+        update((long)index, value);
+    }
+
+    /**
+     * Updates the value at the specified long index and walks up to the root, recomputing each ancestor once.
+     * @param index the index of the element to update
+     * @param value the new value to replace the existing value
+     */
+    public void update(long index, int value) {
+        long i = index + this.size;
+        set(i, value);
+        for (i = i >> 1; i > 0; i = i >> 1) {
+            set(i, combine(get(2 * i), get(2 * i + 1)));
+        }
+    }
+
+    /**
+     * Queries the segment tree for a range of elements.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the result of the query operation
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        return queryRange((long)left, (long)right);
+    }
+
+    /**
+     * Queries the segment tree for a range of elements given by long indexes.
+     * Both borders climb up the tree together, and nodes that stick out of the range are combined on the way.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the result of the query operation
+     */
+    public int queryRange(long left, long right) {
+        int result = identity();
+        long l = left + this.size;
+        long r = right + this.size + 1;
+        while (l < r) {
+            if ((l & 1) == 1) {
+                result = combine(result, get(l));
+                l++;
+            }
+            if ((r & 1) == 1) {
+                r--;
+                result = combine(result, get(r));
+            }
+            l = l >> 1;
+            r = r >> 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of elements the segment tree was built from.
+     *
+     * @return the size of the original array
+     * @throws ArithmeticException if the tree has more than Integer.MAX_VALUE elements, use longSize() instead
+     */
+    @Override
+    public int size() {
+        return Math.toIntExact(this.size);
+    }
+
+    /**
+     * Returns the number of elements the segment tree was built from.
+     *
+     * @return the number of elements
+     */
+    public long longSize() {
+        return this.size;
+    }
+
+    /**
+     * Writes the changed slots of a tree opened from a file back to the file.
+     * Updates reach the mapped pages right away, force only waits until they are on the disk.
+     * Does nothing for a tree in plain memory.
+     */
+    public void force() {
+        for (ByteBuffer buffer : this.buffers) {
+            if (buffer instanceof MappedByteBuffer) {
+                ((MappedByteBuffer)buffer).force();
+            }
+        }
+    }
+
+    /**
+     * Saves the segment tree to a file in the {@link SegmentTreeFile} format, streaming the buffers as they are.
+     * The file can be opened later with SegmentTreeFile.open, without rebuilding.
+     * @param path the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        SegmentTreeFile.save(this, path);
+    }
+
+    /**
+     * Returns a string representation of the segment tree.
+     * The slots are printed according to their indexes, starting from the root in index 1.
+     * For example, for the max tree of {10,15,55,15,9,12} " [ 55 55 15 55 12 10 15 55 15 9 12 ] " will be returned
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        StringBuilder daTree = new StringBuilder(" [");
+        for (long i = 1; i < 2 * this.size; i++) {
+            daTree.append(' ').append(get(i));
+        }
+        daTree.append(" ] ");
+        return daTree.toString();
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * This class represents a segment tree over the order of {@link NumberAnalyzer#compare}, where even numbers are
+ * always bigger than odd numbers and numbers of the same parity are compared by value.
+ * Every node keeps the biggest and the smallest value of its segment under that order, and the number of even
+ * values in it, in three parallel arrays that use the non-recursive layout of {@link IterativeSegmentTreeByArray}:
+ * leaves in [n .. 2n-1] and node i combining its children 2i and 2i+1.
+ * The odd count of a range is its length minus its even count, so it is not stored.
+ */
+public class ParitySegmentTreeByArray {
+
+    // the smallest int under the order (the smallest odd number) and the biggest one (the biggest even number)
+    protected static final int SMALLEST = Integer.MIN_VALUE + 1;
+    protected static final int BIGGEST = Integer.MAX_VALUE - 1;
+
+    protected int[] maxTree;
+    protected int[] minTree;
+    protected int[] evenTree;
+    protected int size;
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public ParitySegmentTreeByArray(int[] arr) {
+        build(arr);
+    }
+
+    /**
+     * Builds the segment tree from the input array in linear time.
+     * @param arr the input array
+     */
+    public void build(int[] arr) {
+        this.size = arr.length;
+        this.maxTree = new int[2 * this.size];
+        this.minTree = new int[2 * this.size];
+        this.evenTree = new int[2 * this.size];
+        for (int i = 0; i < this.size; i++) {
+            setLeaf(i + this.size, arr[i]);
+        }
+        for (int i = this.size - 1; i > 0; i--) {
+            updateNode(i);
+        }
+    }
+
+    /**
+     * Helper function that writes a value into a given leaf.
+     *
+     * @param nodeIdx Index of a leaf in the tree
+     * @param value the value of the leaf
+     */
+    protected void setLeaf(int nodeIdx, int value) {
+        this.maxTree[nodeIdx] = value;
+        this.minTree[nodeIdx] = value;
+        this.evenTree[nodeIdx] = (value % 2) == 0 ? 1 : 0;
+    }
+
+    /**
+     * Helper function that updates a given node's max, min and even count from its children
+     *
+     * @param nodeIdx Index of a node in the tree
+     */
+    protected void updateNode(int nodeIdx) {
+        int left = 2 * nodeIdx;
+        int right = left + 1;
+        this.maxTree[nodeIdx] = maxByParity(this.maxTree[left], this.maxTree[right]);
+        this.minTree[nodeIdx] = minByParity(this.minTree[left], this.minTree[right]);
+        this.evenTree[nodeIdx] = this.evenTree[left] + this.evenTree[right];
+    }
+
+    /**
+     * Helper function that returns the bigger of two numbers under the order of NumberAnalyzer.compare.
+     * @param num1 First number
+     * @param num2 Second number
+     * @return the bigger number
+     */
+    protected static int maxByParity(int num1, int num2) {
+        return NumberAnalyzer.compareByParity(num1, num2) >= 0 ? num1 : num2;
+    }
+
+    /**
+     * Helper function that returns the smaller of two numbers under the order of NumberAnalyzer.compare.
+     * @param num1 First number
+     * @param num2 Second number
+     * @return the smaller number
+     */
+    protected static int minByParity(int num1, int num2) {
+        return NumberAnalyzer.compareByParity(num1, num2) <= 0 ? num1 : num2;
+    }
+
+    /**
+     * Updates the value at the specified index and recomputes the max, min and even count of each ancestor once.
+     * @param index the index of the element to update in the array
+     * @param value the new value to replace the existing value
+     */
+    public void update(int index, int value) {
+        int i = index + this.size;
+        setLeaf(i, value);
+        for (i = i >> 1; i > 0; i = i >> 1) {
+            updateNode(i);
+        }
+    }
+
+    /**
+     * Queries the segment tree for the biggest value in a range under the order of NumberAnalyzer.compare.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the biggest value in the range by compare
+     */
+    public int getMaxByComparator(int left, int right) {
+        int max = SMALLEST;
+        for (int l = left + this.size, r = right + this.size + 1; l < r; l = l >> 1, r = r >> 1) {
+            if ((l & 1) == 1) {
+                max = maxByParity(max, this.maxTree[l++]);
+            }
+            if ((r & 1) == 1) {
+                max = maxByParity(max, this.maxTree[--r]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Queries the segment tree for the smallest value in a range under the order of NumberAnalyzer.compare.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the smallest value in the range by compare
+     */
+    public int getMinByComparator(int left, int right) {
+        int min = BIGGEST;
+        for (int l = left + this.size, r = right + this.size + 1; l < r; l = l >> 1, r = r >> 1) {
+            if ((l & 1) == 1) {
+                min = minByParity(min, this.minTree[l++]);
+            }
+            if ((r & 1) == 1) {
+                min = minByParity(min, this.minTree[--r]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Queries the segment tree for the number of even values in a range.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the number of even values in the range
+     */
+    public int countEven(int left, int right) {
+        int count = 0;
+        for (int l = left + this.size, r = right + this.size + 1; l < r; l = l >> 1, r = r >> 1) {
+            if ((l & 1) == 1) {
+                count = count + this.evenTree[l++];
+            }
+            if ((r & 1) == 1) {
+                count = count + this.evenTree[--r];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Queries the segment tree for the number of odd values in a range.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the number of odd values in the range
+     */
+    public int countOdd(int left, int right) {
+        return (right - left + 1) - countEven(left, right);
+    }
+
+    /**
+     * Returns the number of elements in the original array that the segment tree was built from.
+     *
+     * @return the size of the original array
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a string representation of the segment tree.
+     * Every node from the root in index 1 is printed as max/min/evens.
+     * For example, for {10,30,51} " [ 30/51/2 30/51/1 10/10/1 30/30/1 51/51/0 ] " will be returned
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        StringBuilder daTree = new StringBuilder(" [");
+        for (int i = 1; i < this.evenTree.length; i++) {
+            daTree.append(' ').append(this.maxTree[i]).append('/').append(this.minTree[i]).append('/').append(this.evenTree[i]);
+        }
+        daTree.append(" ] ");
+        return daTree.toString();
+    }
+}
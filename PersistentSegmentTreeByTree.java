@@ -0,0 +1,264 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An abstract base class for a persistent segment tree: nodes are never changed after they are created.
+ * Every update copies only the O(log n) nodes on the root path and links them to the untouched subtrees of the
+ * previous version, so each version keeps its own root and can still be queried after later updates.
+ * Version 0 is the built tree, and every update, updateAll, rangeAdd or rangeAssign adds one version.
+ * Subclasses must implement the {@code queryRange} methods to provide specific range query functionality.
+ */
+public abstract class PersistentSegmentTreeByTree extends SegmentTreeByTree {
+
+    protected ArrayList<SegmentTreeNode> versions;
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public PersistentSegmentTreeByTree(int[] arr) {
+        super(arr);
+    }
+
+    /**
+     * Builds the segment tree from the given array of integers and drops all the previous versions.
+     *
+     * @param arr the array of integers to build the segment tree from
+     */
+    @Override
+    public void build(int[] arr) {
+        super.build(arr);
+        resetVersions();
+    }
+
+    /**
+     * Builds the segment tree in parallel and drops all the previous versions.
+     *
+     * @param arr the array of integers to build the segment tree from
+     * @param pool the pool that runs the build tasks
+     * @param threshold the maximal segment length that is built by a single task
+     */
+    @Override
+    public void build(int[] arr, ForkJoinPool pool, int threshold) {
+        super.build(arr, pool, threshold);
+        resetVersions();
+    }
+
+    /**
+     * Helper function that makes the current root the only version (version 0).
+     */
+    protected synchronized void resetVersions() {
+        this.versions = new ArrayList<SegmentTreeNode>();
+        this.versions.add(this.root);
+    }
+
+    /**
+     * Returns the number of the latest version.
+     * @return the latest version
+     */
+    public synchronized int latestVersion() {
+        return this.versions.size() - 1;
+    }
+
+    /**
+     * Returns the root of the given version. The nodes under it never change.
+     * @param version the version number
+     * @return the root node of the version
+     */
+    public synchronized SegmentTreeNode getRoot(int version) {
+        return this.versions.get(version);
+    }
+
+    /**
+     * Helper function that publishes a new root as the next version.
+     * @param newRoot the root of the new version
+     * @return the number of the new version
+     */
+    protected synchronized int addVersion(SegmentTreeNode newRoot) {
+        this.root = newRoot;
+        this.versions.add(newRoot);
+        return this.versions.size() - 1;
+    }
+
+    /**
+     * Updates the element at the specified index by creating a new version. Older versions are not affected.
+     *
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     */
+    @Override
+    public void update(int index, int value) {
+        updateVersion(index, value);
+    }
+
+    /**
+     * Updates the element at the specified index by creating a new version, and returns the new version.
+     *
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     * @return the number of the new version
+     */
+    public int updateVersion(int index, int value) {
+        return addVersion(copy_n_update(this.root, index, value));
+    }
+
+    /**
+     * Helper function
+     * Recursively copies the path from a given node to the leaf of index, with the new value in the leaf.
+     * The copies point to the original children that are off the path.
+     *
+     * @param currNode starting node (current node recursively)
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     * @return the copy of currNode
+     */
+    protected SegmentTreeNode copy_n_update(SegmentTreeNode currNode, int index, int value) {
+        int currStart = currNode.getStart();
+        int currEnd = currNode.getEnd();
+        if (currNode.isLeaf()) {
+            return new SegmentTreeNode(currStart, currEnd, value, value, value, null, null);
+        }
+        SegmentTreeNode leftChild = (SegmentTreeNode)currNode.leftChild;
+        SegmentTreeNode rightChild = (SegmentTreeNode)currNode.rightChild;
+        if (index <= getMidpoint(currStart, currEnd)) {
+            leftChild = copy_n_update(leftChild, index, value); // go left
+        } else {
+            rightChild = copy_n_update(rightChild, index, value); // go right
+        }
+        SegmentTreeNode copy = new SegmentTreeNode(currStart, currEnd, 0, 0, 0, leftChild, rightChild);
+        updateNode(copy);
+        return copy;
+    }
+
+    /**
+     * Updates several elements at once by creating a single new version.
+     * Each node on the union of the updated paths is copied once.
+     *
+     * @param indices the indices of the elements to update
+     * @param values the new values, values[i] is written to indices[i]
+     * @throws IndexOutOfBoundsException if an index is not in [0, size-1], nothing is written then
+     */
+    @Override
+    public void updateAll(int[] indices, int[] values) {
+        UpdateBatch batch = new UpdateBatch(indices, values, size());
+        if (batch.length() > 0) {
+            addVersion(copy_batch(this.root, batch, 0, batch.length()));
+        }
+    }
+
+    /**
+     * Helper function
+     * Recursively copies the nodes of a given subtree that contain the part [from, to) of the batch.
+     *
+     * @param currNode starting node (current node recursively)
+     * @param batch the sorted updates
+     * @param from first position of the node's updates in the batch (inclusive)
+     * @param to last position of the node's updates in the batch (exclusive)
+     * @return the copy of currNode
+     */
+    protected SegmentTreeNode copy_batch(SegmentTreeNode currNode, UpdateBatch batch, int from, int to) {
+        int currStart = currNode.getStart();
+        int currEnd = currNode.getEnd();
+        if (currNode.isLeaf()) {
+            int value = batch.value(from);
+            return new SegmentTreeNode(currStart, currEnd, value, value, value, null, null);
+        }
+        SegmentTreeNode leftChild = (SegmentTreeNode)currNode.leftChild;
+        SegmentTreeNode rightChild = (SegmentTreeNode)currNode.rightChild;
+        int split = batch.upperBound(from, to, getMidpoint(currStart, currEnd));
+        if (from < split) {
+            leftChild = copy_batch(leftChild, batch, from, split); // go left
+        }
+        if (split < to) {
+            rightChild = copy_batch(rightChild, batch, split, to); // go right
+        }
+        SegmentTreeNode copy = new SegmentTreeNode(currStart, currEnd, 0, 0, 0, leftChild, rightChild);
+        updateNode(copy);
+        return copy;
+    }
+
+    /**
+     * Adds delta to every element in the range by creating a single new version.
+     * Lazy tags would change shared nodes, so the range is copied as a batch of point updates.
+     *
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param delta the value to add to every element in the range
+     */
+    @Override
+    public void rangeAdd(int left, int right, int delta) {
+        int[] indices = new int[right - left + 1];
+        int[] values = new int[right - left + 1];
+        for (int i = left; i <= right; i++) {
+            indices[i - left] = i;
+            values[i - left] = querySum(i, i) + delta;
+        }
+        updateAll(indices, values);
+    }
+
+    /**
+     * Sets every element in the range to value by creating a single new version.
+     * Lazy tags would change shared nodes, so the range is copied as a batch of point updates.
+     *
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param value the new value of every element in the range
+     */
+    @Override
+    public void rangeAssign(int left, int right, int value) {
+        int[] indices = new int[right - left + 1];
+        int[] values = new int[right - left + 1];
+        for (int i = left; i <= right; i++) {
+            indices[i - left] = i;
+            values[i - left] = value;
+        }
+        updateAll(indices, values);
+    }
+
+    /**
+     * Queries the Segment Tree as it was in the given version. to be implemented by subclasses.
+     * @param version the version number
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return the aggregate value in the given range of the given version
+     */
+    public abstract int queryRange(int version, int left, int right);
+
+    /**
+     * Queries the latest version of the Segment Tree.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return the aggregate value in the given range
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        return queryRange(latestVersion(), left, right);
+    }
+
+    /**
+     * Returns a string representation of the latest version, with the min, max and sum of every node pre-order.
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        return traverse_preorder(getRoot(latestVersion()), " [") + " ] ";
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses a tree from a given node and writes/logs the nodes' min/max/sum in the taken path pre-order.
+     *
+     * @param node starting node (current node recursively)
+     * @param st the string written so far
+     * @return the string with the subtree of node appended
+     */
+    protected String traverse_preorder(SegmentTreeNode node, String st) {
+        if (node == null) {
+            return st;
+        }
+        st = st + " " + node.getMin() + "/" + node.getMax() + "/" + node.getSum();
+        st = traverse_preorder((SegmentTreeNode)node.leftChild, st);
+        st = traverse_preorder((SegmentTreeNode)node.rightChild, st);
+        return st;
+    }
+}
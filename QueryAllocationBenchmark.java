@@ -0,0 +1,74 @@
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Measures the heap allocation rate of queryRange on the tree based segment trees.
+ * Uses the per-thread allocation counter of the JVM, so the result is the number of bytes allocated by the
+ * querying thread itself. An allocation-free query path prints 0 bytes per query.
+ */
+public class QueryAllocationBenchmark {
+
+    private static final int SIZE = 1 << 16;
+    private static final int QUERIES = 1_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+
+    /**
+     * Runs the benchmark on the Maximum, Minimum and Summation tree based segment trees.
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int[] arr = new int[SIZE];
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            arr[i] = random.nextInt();
+        }
+        int[] lefts = new int[QUERIES];
+        int[] rights = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int a = random.nextInt(SIZE);
+            int b = random.nextInt(SIZE);
+            lefts[i] = Math.min(a, b);
+            rights[i] = Math.max(a, b);
+        }
+
+        SegmentTree[] trees = {new MaximumSegmentTreeByTree(arr), new MinimumSegmentTreeByTree(arr), new SummationSegmentTreeByTree(arr)};
+        for (SegmentTree tree : trees) {
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                runQueries(tree, lefts, rights);
+            }
+            long before = allocatedBytes();
+            long start = System.nanoTime();
+            int blackhole = runQueries(tree, lefts, rights);
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes() - before;
+
+            System.out.println(tree.getClass().getSimpleName() + ": "
+                + ((double) allocated / QUERIES) + " bytes/query, "
+                + (elapsed / QUERIES) + " ns/query (" + blackhole + ")");
+        }
+    }
+
+    /**
+     * Runs all the queries on the tree.
+     * @param tree the queried tree
+     * @param lefts left endpoints of the queries
+     * @param rights right endpoints of the queries
+     * @return a value depending on all the results, so the queries are not optimized away
+     */
+    private static int runQueries(SegmentTree tree, int[] lefts, int[] rights) {
+        int result = 0;
+        for (int i = 0; i < lefts.length; i++) {
+            result = result ^ tree.queryRange(lefts[i], rights[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread.
+     * @return allocated bytes
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -1,3 +1,7 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.IntStream;
+
 /**
  * A segment tree data structure that supports efficient range queries and updates for integers.
  */
@@ -17,6 +21,60 @@ public interface SegmentTree {
      */
     int queryRange(int left, int right);
 
+    /**
+     * Queries the segment tree for many ranges at once. out[i] receives the result of queryRange(lefts[i], rights[i]).
+     * @param lefts the left endpoints of the ranges (inclusive)
+     * @param rights the right endpoints of the ranges (inclusive)
+     * @param out the array that receives the results, at least as long as lefts
+     */
+    default void queryRanges(int[] lefts, int[] rights, int[] out) {
+        if ((lefts.length != rights.length) || (out.length < lefts.length)) {
+            throw new IllegalArgumentException("lefts, rights and out must have matching lengths");
+        }
+        for (int i = 0; i < lefts.length; i++) {
+            out[i] = queryRange(lefts[i], rights[i]);
+        }
+    }
+
+    /**
+     * Queries the segment tree for many ranges at once, split across the threads of the given pool.
+     * The tree must not be modified while the queries run.
+     * @param lefts the left endpoints of the ranges (inclusive)
+     * @param rights the right endpoints of the ranges (inclusive)
+     * @param out the array that receives the results, at least as long as lefts
+     * @param pool the pool that runs the queries, or null to run them on the calling thread
+     */
+    default void queryRanges(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        if (pool == null) {
+            queryRanges(lefts, rights, out);
+            return;
+        }
+        queryAll(this::queryRange, lefts, rights, out, pool);
+    }
+
+    /**
+     * Runs a range query for every pair of endpoints, on the calling thread or on the given pool.
+     * Shared by the bulk queries of the trees and of the number analyzers.
+     * @param query the range query
+     * @param lefts the left endpoints of the ranges (inclusive)
+     * @param rights the right endpoints of the ranges (inclusive)
+     * @param out the array that receives the results, at least as long as lefts
+     * @param pool the pool that runs the queries, or null to run them on the calling thread
+     */
+    static void queryAll(IntBinaryOperator query, int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        if ((lefts.length != rights.length) || (out.length < lefts.length)) {
+            throw new IllegalArgumentException("lefts, rights and out must have matching lengths");
+        }
+        if (pool == null) {
+            for (int i = 0; i < lefts.length; i++) {
+                out[i] = query.applyAsInt(lefts[i], rights[i]);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, lefts.length).parallel()
+                                       .forEach(i -> out[i] = query.applyAsInt(lefts[i], rights[i]))).join();
+        }
+    }
+
     /**
      * Updates the element at the specified index in the original array and updates the segment tree accordingly.
      * @param index the index of the element to update
@@ -24,6 +82,55 @@ public interface SegmentTree {
      */
     void update(int index, int value);
 
+    /**
+     * Updates several elements at once and updates the segment tree accordingly.
+     * When an index appears more than once, its last value wins, same as calling update for each pair in order.
+     * The default implementation calls update for each pair, implementations override it to recompute
+     * every shared ancestor once per batch instead of once per update.
+     * @param indices the indices of the elements to update
+     * @param values the new values, values[i] is written to indices[i]
+     * @throws IndexOutOfBoundsException if an index is not in [0, size-1], nothing is written then
+     */
+    default void updateAll(int[] indices, int[] values) {
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException("indices and values must have the same length: " + indices.length + " != " + values.length);
+        }
+        for (int index : indices) {
+            if ((index < 0) || (index >= size())) {
+                throw new IndexOutOfBoundsException("Index " + index + " is out of [0, " + (size() - 1) + "]");
+            }
+        }
+        for (int i = 0; i < indices.length; i++) {
+            update(indices[i], values[i]);
+        }
+    }
+
+    /**
+     * Adds delta to every element in the specified range and updates the segment tree accordingly.
+     * The default implementation updates the elements one by one, implementations with lazy propagation override it.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param delta the value to add to every element in the range
+     */
+    default void rangeAdd(int left, int right, int delta) {
+        for (int i = left; i <= right; i++) {
+            update(i, queryRange(i, i) + delta);
+        }
+    }
+
+    /**
+     * Sets every element in the specified range to value and updates the segment tree accordingly.
+     * The default implementation updates the elements one by one, implementations with lazy propagation override it.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param value the new value of every element in the range
+     */
+    default void rangeAssign(int left, int right, int value) {
+        for (int i = left; i <= right; i++) {
+            update(i, value);
+        }
+    }
+
     /**
      * Returns the number of elements in the original array that the segment tree was built from.
      * @return the size of the original array
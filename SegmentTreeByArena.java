@@ -0,0 +1,311 @@
+/**
+ * An abstract base class for a segment tree with the same shape as {@link SegmentTreeByTree}, whose nodes live in
+ * one contiguous int array (the arena) instead of separate SegmentTreeNode objects.
+ * A node is identified by its id, and its fields are stored in this.arena[id*NODE_INTS .. id*NODE_INTS + NODE_INTS-1].
+ * The segment [start, end] of a node is not stored, it is computed on the way down from the root like in
+ * {@link SegmentTreeByArray}. Nodes are numbered in pre-order, so the left child of an internal node is always the
+ * next node and only the right child is stored. A tree of n elements has exactly 2n-1 nodes, so the arena takes 8n
+ * ints, and at most 2^28 elements fit in one int array.
+ * Subclasses must implement the {@code queryRange} method to provide specific range query functionality.
+ */
+public abstract class SegmentTreeByArena implements SegmentTree {
+
+    protected static final int NODE_INTS = 4;
+    protected static final int RIGHT = 0;
+    protected static final int MIN = 1;
+    protected static final int MAX = 2;
+    protected static final int SUM = 3;
+    protected static final int NO_CHILD = -1;
+
+    protected int[] arena;
+    protected int nodeCount;
+    protected int root;
+    protected int size;
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public SegmentTreeByArena(int[] arr) {
+        build(arr);
+    }
+
+    /**
+     * Builds the segment tree from the given array of integers.
+     * The arena is allocated once with room for exactly 2n-1 nodes.
+     *
+     * @param arr the array of integers to build the segment tree from
+     * @throws IllegalArgumentException if the arena of arr does not fit an int array
+     */
+    @Override
+    public void build(int[] arr) {
+        int ints = arenaInts(arr.length);
+        this.size = arr.length;
+        this.arena = new int[ints];
+        this.nodeCount = 0;
+        this.root = rec_tree_build(arr, 0, arr.length - 1);
+    }
+
+    /**
+     * Helper function that returns the number of ints the arena of a tree of length elements takes.
+     * @param length the number of elements
+     * @return (2 * length - 1) * NODE_INTS
+     * @throws IllegalArgumentException if the arena does not fit an int array
+     */
+    protected static int arenaInts(int length) {
+        try {
+            return Math.toIntExact(Math.multiplyExact(2L * length - 1, NODE_INTS));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("The arena of " + length + " elements needs more than " + Integer.MAX_VALUE + " ints");
+        }
+    }
+
+    /**
+     * Helper function
+     * Recursively builds a tree from the given array of integers and start & end array indices.
+     * Node ids are handed out in pre-order, so a subtree always occupies a contiguous part of the arena
+     * and the left subtree starts right after its parent.
+     *
+     * @param arr the array of integers to build the segment tree from
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     * @return id of the subtree's root node
+     */
+    protected int rec_tree_build(int[] arr, int start, int end) {
+        int node = allocateNode();
+        if (start == end) {
+            setLeaf(node, arr[start]);
+            return node;
+        }
+        int mid = getMidpoint(start, end);
+        rec_tree_build(arr, start, mid); // the left child is node + 1
+        this.arena[node * NODE_INTS + RIGHT] = rec_tree_build(arr, mid + 1, end);
+        updateNode(node);
+        return node;
+    }
+
+    /**
+     * Helper function that takes the next free node from the arena.
+     * @return id of the new node
+     */
+    protected int allocateNode() {
+        int node = this.nodeCount;
+        this.nodeCount++;
+        this.arena[node * NODE_INTS + RIGHT] = NO_CHILD;
+        return node;
+    }
+
+    /**
+     * Helper function that sets the min, max and sum of a leaf to its value.
+     * @param node id of the leaf
+     * @param value the value of the leaf
+     */
+    protected void setLeaf(int node, int value) {
+        int base = node * NODE_INTS;
+        this.arena[base + MIN] = value;
+        this.arena[base + MAX] = value;
+        this.arena[base + SUM] = value;
+    }
+
+    /**
+     * Helper function that updates a given node's min, max and sum values from its children
+     *
+     * @param node id of the node
+     */
+    protected void updateNode(int node) {
+        int base = node * NODE_INTS;
+        int left = base + NODE_INTS;
+        int right = this.arena[base + RIGHT] * NODE_INTS;
+        this.arena[base + MIN] = Math.min(this.arena[left + MIN], this.arena[right + MIN]);
+        this.arena[base + MAX] = Math.max(this.arena[left + MAX], this.arena[right + MAX]);
+        this.arena[base + SUM] = this.arena[left + SUM] + this.arena[right + SUM];
+    }
+
+    /**
+     * Helper function that returns the mid index (rounded down) of given start & end array indices.
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     * @return The mid index of the segment
+     */
+    protected int getMidpoint(int start, int end) {
+        return (start + end) >>> 1;
+    }
+
+    /**
+     * Updates the element at the specified index in the original array and updates the segment tree accordingly.
+     *
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     */
+    @Override
+    public void update(int index, int value) {
+        traverse_n_update(this.root, 0, this.size - 1, index, value);
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses a tree from a given node, updates the leaf of index with value
+     * and updates the nodes' min, max and sum values in the taken path, each one once.
+     *
+     * @param node id of the current node
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     * @param index the index of the element to update
+     * @param value the new value of the element at the specified index
+     */
+    protected void traverse_n_update(int node, int start, int end, int index, int value) {
+        if (start == end) {
+            setLeaf(node, value);
+            return;
+        }
+        int mid = getMidpoint(start, end);
+        if (index <= mid) {
+            traverse_n_update(node + 1, start, mid, index, value); // go left
+        } else {
+            traverse_n_update(getRight(node), mid + 1, end, index, value); // go right
+        }
+        updateNode(node);
+    }
+
+    /**
+     * Queries the Segment Tree for the minimum value in the given range.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Minimum value in the given range
+     */
+    public int queryMin(int left, int right) {
+        return queryHelper(this.root, 0, this.size - 1, left, right, MIN);
+    }
+
+    /**
+     * Queries the Segment Tree for the maximum value in the given range.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Maximum value in the given range
+     */
+    public int queryMax(int left, int right) {
+        return queryHelper(this.root, 0, this.size - 1, left, right, MAX);
+    }
+
+    /**
+     * Queries the Segment Tree for the sum of the values in the given range.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Sum of the values in the given range
+     */
+    public int querySum(int left, int right) {
+        return queryHelper(this.root, 0, this.size - 1, left, right, SUM);
+    }
+
+    /**
+     * Helper method for querying the Segment Tree for one of the node fields.
+     * @param node id of the current node
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @param field MIN, MAX or SUM
+     * @return the field aggregated over the given range
+     */
+    protected int queryHelper(int node, int start, int end, int left, int right, int field) {
+        if ((start >= left) && (end <= right)) {
+            return this.arena[node * NODE_INTS + field];
+        }
+        int mid = getMidpoint(start, end);
+
+        if (right <= mid) {
+            return queryHelper(node + 1, start, mid, left, right, field); // go left
+        } else if (left > mid) {
+            return queryHelper(getRight(node), mid + 1, end, left, right, field); // go right
+        }
+        int leftValue = queryHelper(node + 1, start, mid, left, right, field);
+        int rightValue = queryHelper(getRight(node), mid + 1, end, left, right, field);
+        if (field == MIN) {
+            return Math.min(leftValue, rightValue);
+        } else if (field == MAX) {
+            return Math.max(leftValue, rightValue);
+        }
+        return leftValue + rightValue;
+    }
+
+    /**
+     * Returns the id of the left child of a node.
+     * @param node id of the node
+     * @return id of the left child, or NO_CHILD for a leaf
+     */
+    public int getLeft(int node) {
+        return isLeaf(node) ? NO_CHILD : node + 1;
+    }
+
+    /**
+     * Returns the id of the right child of a node.
+     * @param node id of the node
+     * @return id of the right child, or NO_CHILD for a leaf
+     */
+    public int getRight(int node) {
+        return this.arena[node * NODE_INTS + RIGHT];
+    }
+
+    /**
+     * Returns the minimum value of the segment represented by a node.
+     * @param node id of the node
+     * @return The minimum value of the segment.
+     */
+    public int getMin(int node) {
+        return this.arena[node * NODE_INTS + MIN];
+    }
+
+    /**
+     * Returns the maximum value of the segment represented by a node.
+     * @param node id of the node
+     * @return The maximum value of the segment.
+     */
+    public int getMax(int node) {
+        return this.arena[node * NODE_INTS + MAX];
+    }
+
+    /**
+     * Returns the sum of the segment represented by a node.
+     * @param node id of the node
+     * @return The sum of the segment.
+     */
+    public int getSum(int node) {
+        return this.arena[node * NODE_INTS + SUM];
+    }
+
+    /**
+     * Returns if a node is a leaf or not
+     * @param node id of the node
+     * @return true or false.
+     */
+    public boolean isLeaf(int node) {
+        return getRight(node) == NO_CHILD;
+    }
+
+    /**
+     * Returns the id of the root node.
+     * @return id of the root
+     */
+    public int getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Returns the number of elements in the original array that the segment tree was built from.
+     *
+     * @return the size of the original array
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Queries the Segment Tree in the given range. to be implemented by subclasses.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return the aggregate value in the given range
+     */
+    @Override
+    public abstract int queryRange(int left, int right);
+}
@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  * This abstract class represents a segment tree implementation using an array
  * and provides methods to build, update, and query the tree.
@@ -6,6 +12,10 @@ public abstract class SegmentTreeByArray implements SegmentTree {
      
 	 protected int[] tree;
 	 protected int size;
+	 // pending range updates of each node's children, allocated on the first range update
+	 protected int[] lazyAdd;
+	 protected int[] lazyAssign;
+	 protected boolean[] hasLazyAssign;
 
     /**
      * Constructor for initializing the segment tree with the given input array.
@@ -15,6 +25,16 @@ public abstract class SegmentTreeByArray implements SegmentTree {
       build(arr);
     }
 
+    /**
+     * Constructor for initializing the segment tree with the given input array, built in parallel.
+     * @param arr the input array
+     * @param pool the pool that runs the build tasks
+     * @param threshold the maximal segment length that is built by a single task
+     */
+    public SegmentTreeByArray(int[] arr, ForkJoinPool pool, int threshold) {
+      build(arr, pool, threshold);
+    }
+
     /**
      * Builds the segment tree from the input array.
      * @param arr the input array
@@ -23,14 +43,8 @@ public abstract class SegmentTreeByArray implements SegmentTree {
     public void build(int[] arr) {
       int start = 0;
       int end = arr.length-1;
-      
-      int treeSize = 2*(int)Math.pow(2,(Math.ceil(Math.log(arr.length)/Math.log(2)))) - 1;
-      this.tree = new int[treeSize];
-      for (int i=0; i < this.tree.length; i++) {
-        this.tree[i] = Integer.MIN_VALUE;
-      }
-      
-      this.size = arr.length;
+
+      allocateTree(arr.length);
 
       rec_tree_build(arr, start, end, 0);
       
@@ -45,6 +59,67 @@ public abstract class SegmentTreeByArray implements SegmentTree {
       // parent of a child in Math.floor((i+1)/2) - (i = child index)
     }
 
+    /**
+     * Builds the segment tree from the input array in parallel on the given pool.
+     * Subtrees with more than threshold elements are split into two tasks, smaller subtrees are built
+     * sequentially by rec_tree_build. The result is identical to the sequential build.
+     * @param arr the input array
+     * @param pool the pool that runs the build tasks
+     * @param threshold the maximal segment length that is built by a single task
+     */
+    public void build(int[] arr, ForkJoinPool pool, int threshold) {
+      allocateTree(arr.length);
+      pool.invoke(new BuildTask(arr, 0, arr.length-1, 0, Math.max(threshold, 1)));
+    }
+
+    /**
+     * Helper function that allocates this.tree for an input array of the given length and resets the tree state.
+     * Unused slots keep the Integer.MIN_VALUE sentinel.
+     * @param length the length of the input array
+     */
+    protected void allocateTree(int length) {
+      int treeSize = 2*(int)Math.pow(2,(Math.ceil(Math.log(length)/Math.log(2)))) - 1;
+      this.tree = new int[treeSize];
+      Arrays.fill(this.tree, Integer.MIN_VALUE);
+
+      this.size = length;
+      this.lazyAdd = null;
+      this.lazyAssign = null;
+      this.hasLazyAssign = null;
+    }
+
+    /**
+     * Fork/join task that builds the subtree of one node.
+     * Different subtrees write to different slots of this.tree, so the two halves can be built at the same time.
+     */
+    class BuildTask extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+      private final int[] arr;
+      private final int start, end, treeIdx, threshold;
+
+      // constructor
+      BuildTask(int[] arr, int start, int end, int treeIdx, int threshold) {
+        this.arr = arr;
+        this.start = start;
+        this.end = end;
+        this.treeIdx = treeIdx;
+        this.threshold = threshold;
+      }
+
+      // builds small segments sequentially, splits the rest and combines the two children afterwards
+      @Override
+      protected void compute() {
+        if (end - start + 1 <= threshold) {
+          rec_tree_build(arr, start, end, treeIdx);
+          return;
+        }
+        int mid = getMidpoint(start, end);
+        invokeAll(new BuildTask(arr, start, mid, treeIdx*2 + 1, threshold),
+                  new BuildTask(arr, mid+1, end, treeIdx*2 + 2, threshold));
+        updateNode(treeIdx);
+      }
+    }
+
     /**
      * Helper function.
      * Abstract class that is implemented accordingly in the subclasses.
@@ -91,12 +166,16 @@ public abstract class SegmentTreeByArray implements SegmentTree {
      * @param value the new value to replace the existing value
      */
     protected void traverse_n_update(int nodeIdx, int start, int end, int index, int value) {
+      if (Instrumentation.ENABLED) {
+          Instrumentation.visitNode();
+      }
       int mid = getMidpoint(start, end);
       // index found
       if ((end == index) && (start == index)) {
           this.tree[nodeIdx] = value;
           return;
       }
+      pushDown(nodeIdx, start, end);
       if (index <= mid) {
           nodeIdx = nodeIdx*2 + 1;
           traverse_n_update(nodeIdx, start, mid, index, value); // go left
@@ -112,6 +191,50 @@ public abstract class SegmentTreeByArray implements SegmentTree {
       updateNode(0);
     }
 
+    /**
+     * Updates several elements at once. The leaves are written first and every ancestor of an updated leaf
+     * is recomputed exactly once, after its children.
+     * @param indices the indices of the elements to update in the array
+     * @param values the new values, values[i] is written to indices[i]
+     * @throws IndexOutOfBoundsException if an index is not in [0, size-1], nothing is written then
+     */
+    @Override
+    public void updateAll(int[] indices, int[] values) {
+      UpdateBatch batch = new UpdateBatch(indices, values, size());
+      if (batch.length() > 0) {
+        rec_batch_update(0, 0, size()-1, batch, 0, batch.length());
+      }
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses the tree from a given node with the part [from, to) of the batch that falls inside
+     * the node's segment. Splits the batch between the children, then recomputes the node (uses updateNode).
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     * @param batch the sorted updates
+     * @param from first position of the node's updates in the batch (inclusive)
+     * @param to last position of the node's updates in the batch (exclusive)
+     */
+    protected void rec_batch_update(int nodeIdx, int start, int end, UpdateBatch batch, int from, int to) {
+      if (start == end) {
+        this.tree[nodeIdx] = batch.value(from);
+        return;
+      }
+      pushDown(nodeIdx, start, end);
+      int mid = getMidpoint(start, end);
+      int split = batch.upperBound(from, to, mid);
+      if (from < split) {
+        rec_batch_update(nodeIdx*2 + 1, start, mid, batch, from, split); // go left
+      }
+      if (split < to) {
+        rec_batch_update(nodeIdx*2 + 2, mid+1, end, batch, split, to); // go right
+      }
+      updateNode(nodeIdx);
+    }
+
     /**
      * Helper function used to update the node based on the main criteria of each tree
      * implemented in its subclass
@@ -120,6 +243,143 @@ public abstract class SegmentTreeByArray implements SegmentTree {
      */
     protected abstract void updateNode(int nodeIdx);
 
+    /**
+     * Adds delta to every element in the range [left, right] in O(log n) using lazy propagation.
+     * @param left the left index of the range
+     * @param right the right index of the range
+     * @param delta the value to add to every element in the range
+     */
+    @Override
+    public void rangeAdd(int left, int right, int delta) {
+      allocateLazy();
+      rec_range_update(0, 0, size()-1, left, right, delta, false);
+    }
+
+    /**
+     * Sets every element in the range [left, right] to value in O(log n) using lazy propagation.
+     * @param left the left index of the range
+     * @param right the right index of the range
+     * @param value the new value of every element in the range
+     */
+    @Override
+    public void rangeAssign(int left, int right, int value) {
+      allocateLazy();
+      rec_range_update(0, 0, size()-1, left, right, value, true);
+    }
+
+    /**
+     * Helper function that allocates the lazy arrays (same size as this.tree) on the first range update.
+     */
+    protected void allocateLazy() {
+      if (this.lazyAdd == null) {
+        this.lazyAdd = new int[this.tree.length];
+        this.lazyAssign = new int[this.tree.length];
+        this.hasLazyAssign = new boolean[this.tree.length];
+      }
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses the tree and applies the range update to every node that is fully inside [left, right].
+     * Partially covered nodes push their pending updates down and are recomputed from their children (uses updateNode).
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     * @param left the left index of the range
+     * @param right the right index of the range
+     * @param value the delta to add or the value to assign
+     * @param assign true for an assignment, false for an addition
+     */
+    protected void rec_range_update(int nodeIdx, int start, int end, int left, int right, int value, boolean assign) {
+      if ((right < start) || (end < left)) {
+        return; // segment out of range
+      }
+      if ((start >= left) && (end <= right)) {
+        applyLazy(nodeIdx, start, end, value, assign);
+        return;
+      }
+      pushDown(nodeIdx, start, end);
+      int mid = getMidpoint(start, end);
+      rec_range_update(nodeIdx*2 + 1, start, mid, left, right, value, assign);
+      rec_range_update(nodeIdx*2 + 2, mid+1, end, left, right, value, assign);
+      updateNode(nodeIdx);
+    }
+
+    /**
+     * Helper function that applies a range update to a node's value and records it as pending for its children.
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     * @param value the delta to add or the value to assign
+     * @param assign true for an assignment, false for an addition
+     */
+    protected void applyLazy(int nodeIdx, int start, int end, int value, boolean assign) {
+      int length = end - start + 1;
+      if (assign) {
+        assignToNode(nodeIdx, value, length);
+        if (start != end) {
+          this.lazyAssign[nodeIdx] = value;
+          this.hasLazyAssign[nodeIdx] = true;
+          this.lazyAdd[nodeIdx] = 0;
+        }
+      } else {
+        addToNode(nodeIdx, value, length);
+        if (start != end) {
+          if (this.hasLazyAssign[nodeIdx]) {
+            this.lazyAssign[nodeIdx] += value; // an addition after an assignment is a different assignment
+          } else {
+            this.lazyAdd[nodeIdx] += value;
+          }
+        }
+      }
+    }
+
+    /**
+     * Helper function that moves the pending range update of a node to its two children.
+     * Must be called before descending from a node. Does nothing if no range update was ever made.
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     */
+    protected void pushDown(int nodeIdx, int start, int end) {
+      if ((this.lazyAdd == null) || (start == end)) {
+        return;
+      }
+      int mid = getMidpoint(start, end);
+      if (this.hasLazyAssign[nodeIdx]) {
+        applyLazy(nodeIdx*2 + 1, start, mid, this.lazyAssign[nodeIdx], true);
+        applyLazy(nodeIdx*2 + 2, mid+1, end, this.lazyAssign[nodeIdx], true);
+        this.hasLazyAssign[nodeIdx] = false;
+      } else if (this.lazyAdd[nodeIdx] != 0) {
+        applyLazy(nodeIdx*2 + 1, start, mid, this.lazyAdd[nodeIdx], false);
+        applyLazy(nodeIdx*2 + 2, mid+1, end, this.lazyAdd[nodeIdx], false);
+        this.lazyAdd[nodeIdx] = 0;
+      }
+    }
+
+    /**
+     * Helper function used to add delta to every element under a node, implemented in the subclass
+     * according to the main criteria of each tree.
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param delta the value added to every element in the segment
+     * @param length the number of elements in the segment
+     */
+    protected abstract void addToNode(int nodeIdx, int delta, int length);
+
+    /**
+     * Helper function used to set every element under a node to value, implemented in the subclass
+     * according to the main criteria of each tree.
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param value the new value of every element in the segment
+     * @param length the number of elements in the segment
+     */
+    protected abstract void assignToNode(int nodeIdx, int value, int length);
+
     /**
      * Queries the segment tree for a range of elements.
      * @param left the left index of the range
@@ -134,6 +394,94 @@ public abstract class SegmentTreeByArray implements SegmentTree {
 	   // uses the query function for the implementation. 
     }
 
+    /**
+     * Queries the segment tree for many ranges at once, split across the threads of the given pool.
+     * Queries push pending range updates down, so all of them are pushed to the leaves first
+     * and the parallel queries only read this.tree.
+     * @param lefts the left endpoints of the ranges (inclusive)
+     * @param rights the right endpoints of the ranges (inclusive)
+     * @param out the array that receives the results, at least as long as lefts
+     * @param pool the pool that runs the queries, or null to run them on the calling thread
+     */
+    @Override
+    public void queryRanges(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+      flushLazy();
+      SegmentTree.super.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Helper function that pushes every pending range update down to the leaves and drops the lazy arrays.
+     */
+    protected void flushLazy() {
+      if (this.lazyAdd == null) {
+        return;
+      }
+      rec_flush(0, 0, size()-1);
+      this.lazyAdd = null;
+      this.lazyAssign = null;
+      this.hasLazyAssign = null;
+    }
+
+    /**
+     * Helper function
+     * Recursively pushes the pending range updates of a node and all its descendants.
+     * 
+     * @param nodeIdx Index of a node in the tree
+     * @param start The start index of the segment
+     * @param end The end index of the segment
+     */
+    protected void rec_flush(int nodeIdx, int start, int end) {
+      if (start == end) {
+        return;
+      }
+      pushDown(nodeIdx, start, end);
+      int mid = getMidpoint(start, end);
+      rec_flush(nodeIdx*2 + 1, start, mid);
+      rec_flush(nodeIdx*2 + 2, mid+1, end);
+    }
+
+    /**
+     * Returns the current values of all the elements, with every pending range update applied.
+     * @return a new array with the element values
+     */
+    public int[] toArray() {
+      int[] out = new int[size()];
+      if (size() > 0) {
+        rec_copy_leaves(0, 0, size()-1, out);
+      }
+      return out;
+    }
+
+    /**
+     * Helper function
+     * Recursively copies the leaves of a given subtree to out, pushing the pending range updates down on the way.
+     *
+     * @param nodeIdx the index of the current node
+     * @param start the start index of the node's segment
+     * @param end the end index of the node's segment
+     * @param out the element values
+     */
+    protected void rec_copy_leaves(int nodeIdx, int start, int end, int[] out) {
+      if (start == end) {
+        out[start] = this.tree[nodeIdx];
+        return;
+      }
+      pushDown(nodeIdx, start, end);
+      int mid = getMidpoint(start, end);
+      rec_copy_leaves(nodeIdx*2 + 1, start, mid, out);
+      rec_copy_leaves(nodeIdx*2 + 2, mid+1, end, out);
+    }
+
+    /**
+     * Saves the segment tree to a file in the {@link SegmentTreeFile} format.
+     * The file can be opened later with SegmentTreeFile.open, without rebuilding.
+     * @param path the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+      SegmentTreeFile.save(this, path);
+    }
+
     /**
      * Abstract method for query operation, to be implemented by subclasses.
      * @param node the current node
@@ -1,3 +1,6 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 /**
  * An abstract base class for a segment tree data structure implemented using a tree structure.
  * Subclasses must implement the {@code queryRange} method to provide specific range query functionality.
@@ -6,6 +9,7 @@ public abstract class SegmentTreeByTree implements SegmentTree {
 
     protected SegmentTreeNode root;
     protected int size;
+    protected boolean hasPendingLazy;
 
     /**
      * Constructor for creating a Segment Tree from an input array
@@ -15,6 +19,16 @@ public abstract class SegmentTreeByTree implements SegmentTree {
         build(arr);
     }
 
+    /**
+     * Constructor for creating a Segment Tree from an input array, built in parallel
+     * @param arr Input array for which Segment Tree needs to be constructed
+     * @param pool the pool that runs the build tasks
+     * @param threshold the maximal segment length that is built by a single task
+     */
+    public SegmentTreeByTree(int[] arr, ForkJoinPool pool, int threshold) {
+        build(arr, pool, threshold);
+    }
+
     /**
      * Builds the segment tree from the given array of integers.
      *
@@ -26,9 +40,59 @@ public abstract class SegmentTreeByTree implements SegmentTree {
         int end = arr.length-1;
 
         this.size = arr.length;
+        this.hasPendingLazy = false;
         this.root = rec_tree_build(arr, start, end); 
     }
 
+    /**
+     * Builds the segment tree from the given array of integers in parallel on the given pool.
+     * Subtrees with more than threshold elements are split into two tasks, smaller subtrees are built
+     * sequentially by rec_tree_build. The result is identical to the sequential build.
+     *
+     * @param arr the array of integers to build the segment tree from
+     * @param pool the pool that runs the build tasks
+     * @param threshold the maximal segment length that is built by a single task
+     */
+    public void build(int[] arr, ForkJoinPool pool, int threshold) {
+        this.size = arr.length;
+        this.hasPendingLazy = false;
+        this.root = pool.invoke(new BuildTask(arr, 0, arr.length-1, Math.max(threshold, 1)));
+    }
+
+    /**
+     * Fork/join task that builds the subtree of one segment and returns its root.
+     */
+    class BuildTask extends RecursiveTask<SegmentTreeNode> {
+        private static final long serialVersionUID = 1L;
+        private final int[] arr;
+        private final int start, end, threshold;
+
+        // constructor
+        BuildTask(int[] arr, int start, int end, int threshold) {
+            this.arr = arr;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        // builds small segments sequentially, splits the rest and links the two children afterwards
+        @Override
+        protected SegmentTreeNode compute() {
+            if (end - start + 1 <= threshold) {
+                return rec_tree_build(arr, start, end);
+            }
+            int mid = getMidpoint(start, end);
+            BuildTask leftTask = new BuildTask(arr, start, mid, threshold);
+            BuildTask rightTask = new BuildTask(arr, mid+1, end, threshold);
+            invokeAll(leftTask, rightTask);
+            SegmentTreeNode node = new SegmentTreeNode(start, end);
+            node.leftChild = leftTask.join();
+            node.rightChild = rightTask.join();
+            updateNode(node);
+            return node;
+        }
+    }
+
     /**
      * Helper function
      * Recursively builds a tree from the given array of integers and start & end array indices.
@@ -86,6 +150,9 @@ public abstract class SegmentTreeByTree implements SegmentTree {
      * @param value the new value of the element at the specified index
      */
     protected void traverse_n_update(SegmentTreeNode currNode, int index, int value) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.visitNode();
+        }
         int currStart = currNode.getStart();
         int currEnd = currNode.getEnd();
         int currMid = getMidpoint(currStart, currEnd);
@@ -95,6 +162,7 @@ public abstract class SegmentTreeByTree implements SegmentTree {
             currNode.setSum(value);
             return;
         }
+        pushDown(currNode);
         if (index <= currMid) { 
             currNode = (SegmentTreeNode)currNode.leftChild; // go left
             traverse_n_update(currNode, index, value);
@@ -110,6 +178,51 @@ public abstract class SegmentTreeByTree implements SegmentTree {
         updateNode(this.root);
     }
 
+    /**
+     * Updates several elements at once. The leaves are written first and every ancestor of an updated leaf
+     * is recomputed exactly once, after its children.
+     *
+     * @param indices the indices of the elements to update
+     * @param values the new values, values[i] is written to indices[i]
+     * @throws IndexOutOfBoundsException if an index is not in [0, size-1], nothing is written then
+     */
+    @Override
+    public void updateAll(int[] indices, int[] values) {
+        UpdateBatch batch = new UpdateBatch(indices, values, size());
+        if (batch.length() > 0) {
+            rec_batch_update(this.root, batch, 0, batch.length());
+        }
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses a tree from a given node with the part [from, to) of the batch that falls inside
+     * the node's segment. Splits the batch between the children, then recomputes the node's min, max and sum.
+     * 
+     * @param currNode starting node (current node recursively)
+     * @param batch the sorted updates
+     * @param from first position of the node's updates in the batch (inclusive)
+     * @param to last position of the node's updates in the batch (exclusive)
+     */
+    protected void rec_batch_update(SegmentTreeNode currNode, UpdateBatch batch, int from, int to) {
+        if (currNode.isLeaf()) {
+            currNode.setMin(batch.value(from));
+            currNode.setMax(batch.value(from));
+            currNode.setSum(batch.value(from));
+            return;
+        }
+        pushDown(currNode);
+        int currMid = getMidpoint(currNode.getStart(), currNode.getEnd());
+        int split = batch.upperBound(from, to, currMid);
+        if (from < split) {
+            rec_batch_update((SegmentTreeNode)currNode.leftChild, batch, from, split); // go left
+        }
+        if (split < to) {
+            rec_batch_update((SegmentTreeNode)currNode.rightChild, batch, split, to); // go right
+        }
+        updateNode(currNode);
+    }
+
     /**
      * Helper function that updates a given node's min, max and sum values
      * 
@@ -124,6 +237,111 @@ public abstract class SegmentTreeByTree implements SegmentTree {
         node.setSum(((SegmentTreeNode) node.leftChild).getSum() + ((SegmentTreeNode) node.rightChild).getSum());
     }
 
+    /**
+     * Adds delta to every element in the range [left, right] in O(log n) using lazy propagation.
+     *
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param delta the value to add to every element in the range
+     */
+    @Override
+    public void rangeAdd(int left, int right, int delta) {
+        this.hasPendingLazy = true;
+        rec_range_update(this.root, left, right, delta, false);
+    }
+
+    /**
+     * Sets every element in the range [left, right] to value in O(log n) using lazy propagation.
+     *
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param value the new value of every element in the range
+     */
+    @Override
+    public void rangeAssign(int left, int right, int value) {
+        this.hasPendingLazy = true;
+        rec_range_update(this.root, left, right, value, true);
+    }
+
+    /**
+     * Helper function
+     * Recursively traverses a tree from a given node and applies the range update to every node that is fully inside [left, right].
+     * Partially covered nodes push their pending updates down and are recomputed from their children.
+     * 
+     * @param node starting node (current node recursively)
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param value the delta to add or the value to assign
+     * @param assign true for an assignment, false for an addition
+     */
+    protected void rec_range_update(SegmentTreeNode node, int left, int right, int value, boolean assign) {
+        if ((right < node.getStart()) || (node.getEnd() < left)) {
+            return; // segment out of range
+        }
+        if ((node.getStart() >= left) && (node.getEnd() <= right)) {
+            applyLazy(node, value, assign);
+            return;
+        }
+        pushDown(node);
+        rec_range_update((SegmentTreeNode)node.leftChild, left, right, value, assign);
+        rec_range_update((SegmentTreeNode)node.rightChild, left, right, value, assign);
+        updateNode(node);
+    }
+
+    /**
+     * Helper function that applies a range update to a node's min, max and sum values
+     * and records it as pending for its children.
+     * 
+     * @param node the updated node
+     * @param value the delta to add or the value to assign
+     * @param assign true for an assignment, false for an addition
+     */
+    protected void applyLazy(SegmentTreeNode node, int value, boolean assign) {
+        int length = node.getEnd() - node.getStart() + 1;
+        if (assign) {
+            node.setMin(value);
+            node.setMax(value);
+            node.setSum(value*length);
+            if (!node.isLeaf()) {
+                node.setLazyAssign(value);
+                node.setHasLazyAssign(true);
+                node.setLazyAdd(0);
+            }
+        } else {
+            node.setMin(node.getMin() + value);
+            node.setMax(node.getMax() + value);
+            node.setSum(node.getSum() + value*length);
+            if (!node.isLeaf()) {
+                if (node.hasLazyAssign()) {
+                    node.setLazyAssign(node.getLazyAssign() + value); // an addition after an assignment is a different assignment
+                } else {
+                    node.setLazyAdd(node.getLazyAdd() + value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper function that moves the pending range update of a node to its two children.
+     * Must be called before descending from a node.
+     * 
+     * @param node the node whose pending update is pushed
+     */
+    protected void pushDown(SegmentTreeNode node) {
+        if (node.isLeaf()) {
+            return;
+        }
+        if (node.hasLazyAssign()) {
+            applyLazy((SegmentTreeNode)node.leftChild, node.getLazyAssign(), true);
+            applyLazy((SegmentTreeNode)node.rightChild, node.getLazyAssign(), true);
+            node.setHasLazyAssign(false);
+        } else if (node.getLazyAdd() != 0) {
+            applyLazy((SegmentTreeNode)node.leftChild, node.getLazyAdd(), false);
+            applyLazy((SegmentTreeNode)node.rightChild, node.getLazyAdd(), false);
+            node.setLazyAdd(0);
+        }
+    }
+
     /**
      * Returns the number of elements in the original array that the segment tree was built from.
      *
@@ -145,38 +363,201 @@ public abstract class SegmentTreeByTree implements SegmentTree {
     public abstract int queryRange(int left, int right);
 
     /**
-     * Helper method for querying the Segment Tree 
+     * Queries the Segment Tree for many ranges at once, split across the threads of the given pool.
+     * Queries push pending range updates down, so all of them are pushed to the leaves first
+     * and the parallel queries only read the nodes.
+     * @param lefts the left endpoints of the ranges (inclusive)
+     * @param rights the right endpoints of the ranges (inclusive)
+     * @param out the array that receives the results, at least as long as lefts
+     * @param pool the pool that runs the queries, or null to run them on the calling thread
+     */
+    @Override
+    public void queryRanges(int[] lefts, int[] rights, int[] out, ForkJoinPool pool) {
+        if (this.hasPendingLazy) {
+            rec_flush(this.root);
+            this.hasPendingLazy = false;
+        }
+        SegmentTree.super.queryRanges(lefts, rights, out, pool);
+    }
+
+    /**
+     * Helper function
+     * Recursively pushes the pending range updates of a node and all its descendants.
+     * 
+     * @param node starting node (current node recursively)
+     */
+    protected void rec_flush(SegmentTreeNode node) {
+        if (node.isLeaf()) {
+            return;
+        }
+        pushDown(node);
+        rec_flush((SegmentTreeNode)node.leftChild);
+        rec_flush((SegmentTreeNode)node.rightChild);
+    }
+
+    /**
+     * Queries the Segment Tree for the minimum, maximum and sum values in the given range with a single walk.
+     * Every node holds all three values, so this works on any subclass. Allocates only the returned node.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return A new SegmentTreeNode that contains the minimum, maximum and sum values for the given range
+     */
+    public SegmentTreeNode queryStats(int left, int right) {
+        SegmentTreeNode result = new SegmentTreeNode(left, right);
+        queryRangeHelper(this.root, left, right, result);
+        return result;
+    }
+
+    /**
+     * Helper method for querying the Segment Tree.
+     * Merges the min, max and sum of every node that is fully inside the range into result, without allocating.
      * @param node Current node of the Segment Tree
      * @param left Start index of the query range
      * @param right End index of the query range
-     * @return A SegmentTreeNode that contains the minimum, maximum and sum values for the given range
+     * @param result accumulator node, starts with the neutral values (min = Integer.MAX_VALUE, max = Integer.MIN_VALUE, sum = 0)
      */
-    protected SegmentTreeNode queryRangeHelper(SegmentTreeNode node, int left, int right) {
+    protected void queryRangeHelper(SegmentTreeNode node, int left, int right, SegmentTreeNode result) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.visitNode();
+        }
         int currStart = node.getStart();
         int currEnd = node.getEnd();
-        SegmentTreeNode leftNode;
-        SegmentTreeNode rightNode; 
-        SegmentTreeNode newNode;
 
         if ((currStart >= left) && (currEnd <= right)) {
-            return node;
+            result.setMin(Math.min(result.getMin(), node.getMin()));
+            result.setMax(Math.max(result.getMax(), node.getMax()));
+            result.setSum(result.getSum() + node.getSum());
+            return;
         }
 
+        pushDown(node);
         int currMid = getMidpoint(currStart, currEnd);
+        if (Instrumentation.ENABLED && (left <= currMid) && (right > currMid)) {
+            Instrumentation.splitQuery();
+        }
+
+        if (left <= currMid) {
+            queryRangeHelper((SegmentTreeNode)node.leftChild, left, right, result);
+        }
+        if (right > currMid) {
+            queryRangeHelper((SegmentTreeNode)node.rightChild, left, right, result);
+        }
+    }
+
+    /**
+     * Queries the Segment Tree for the minimum value in the given range without allocating.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Minimum value in the given range
+     */
+    public int queryMin(int left, int right) {
+        return queryMinHelper(this.root, left, right);
+    }
+
+    /**
+     * Queries the Segment Tree for the maximum value in the given range without allocating.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Maximum value in the given range
+     */
+    public int queryMax(int left, int right) {
+        return queryMaxHelper(this.root, left, right);
+    }
+
+    /**
+     * Queries the Segment Tree for the sum of the values in the given range without allocating.
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Sum of the values in the given range
+     */
+    public int querySum(int left, int right) {
+        return querySumHelper(this.root, left, right);
+    }
+
+    /**
+     * Helper method for querying the minimum value of a range. Returns a primitive instead of a node.
+     * @param node Current node of the Segment Tree
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Minimum value in the given range
+     */
+    protected int queryMinHelper(SegmentTreeNode node, int left, int right) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.visitNode();
+        }
+        if ((node.getStart() >= left) && (node.getEnd() <= right)) {
+            return node.getMin();
+        }
+        pushDown(node);
+        int currMid = getMidpoint(node.getStart(), node.getEnd());
 
         if (right <= currMid) {
-            newNode = queryRangeHelper((SegmentTreeNode)node.leftChild, left, right);
+            return queryMinHelper((SegmentTreeNode)node.leftChild, left, right);
         } else if (left > currMid) {
-            newNode = queryRangeHelper((SegmentTreeNode)node.rightChild, left, right);
-        } else {
-            leftNode = queryRangeHelper((SegmentTreeNode)node.leftChild, left, currMid);
-            rightNode = queryRangeHelper((SegmentTreeNode)node.rightChild, currMid+1, right);
-            newNode = new SegmentTreeNode(currStart, currEnd);
-            newNode.setMin(Math.min(leftNode.getMin(),rightNode.getMin()));
-            newNode.setMax(Math.max(leftNode.getMax(),rightNode.getMax()));
-            newNode.setSum(leftNode.getSum() + rightNode.getSum());
+            return queryMinHelper((SegmentTreeNode)node.rightChild, left, right);
+        }
+        if (Instrumentation.ENABLED) {
+            Instrumentation.splitQuery();
+        }
+        return Math.min(queryMinHelper((SegmentTreeNode)node.leftChild, left, right),
+                        queryMinHelper((SegmentTreeNode)node.rightChild, left, right));
+    }
+
+    /**
+     * Helper method for querying the maximum value of a range. Returns a primitive instead of a node.
+     * @param node Current node of the Segment Tree
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Maximum value in the given range
+     */
+    protected int queryMaxHelper(SegmentTreeNode node, int left, int right) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.visitNode();
+        }
+        if ((node.getStart() >= left) && (node.getEnd() <= right)) {
+            return node.getMax();
+        }
+        pushDown(node);
+        int currMid = getMidpoint(node.getStart(), node.getEnd());
+
+        if (right <= currMid) {
+            return queryMaxHelper((SegmentTreeNode)node.leftChild, left, right);
+        } else if (left > currMid) {
+            return queryMaxHelper((SegmentTreeNode)node.rightChild, left, right);
+        }
+        if (Instrumentation.ENABLED) {
+            Instrumentation.splitQuery();
+        }
+        return Math.max(queryMaxHelper((SegmentTreeNode)node.leftChild, left, right),
+                        queryMaxHelper((SegmentTreeNode)node.rightChild, left, right));
+    }
+
+    /**
+     * Helper method for querying the sum of a range. Returns a primitive instead of a node.
+     * @param node Current node of the Segment Tree
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Sum of the values in the given range
+     */
+    protected int querySumHelper(SegmentTreeNode node, int left, int right) {
+        if (Instrumentation.ENABLED) {
+            Instrumentation.visitNode();
         }
+        if ((node.getStart() >= left) && (node.getEnd() <= right)) {
+            return node.getSum();
+        }
+        pushDown(node);
+        int currMid = getMidpoint(node.getStart(), node.getEnd());
 
-        return newNode;
+        if (right <= currMid) {
+            return querySumHelper((SegmentTreeNode)node.leftChild, left, right);
+        } else if (left > currMid) {
+            return querySumHelper((SegmentTreeNode)node.rightChild, left, right);
+        }
+        if (Instrumentation.ENABLED) {
+            Instrumentation.splitQuery();
+        }
+        return querySumHelper((SegmentTreeNode)node.leftChild, left, right)
+             + querySumHelper((SegmentTreeNode)node.rightChild, left, right);
     }
 }
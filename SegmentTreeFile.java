@@ -0,0 +1,351 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The on-disk format of the array-based Min, Max and Sum segment trees.
+ * A file is a 32 byte header followed by the 2n slots of the bottom-up layout of {@link OffHeapSegmentTreeByArray},
+ * all little-endian:
+ *
+ *   offset 0   int   MAGIC ("SEGT")
+ *   offset 4   int   VERSION of the format
+ *   offset 8   int   the tree type (KIND_MAX, KIND_MIN or KIND_SUM)
+ *   offset 12  int   log2 of the number of slots in every mapped region
+ *   offset 16  long  the number of elements n
+ *   offset 24  long  the LSN of the last {@link UpdateLog} frame the tree contains (0 if none)
+ *   offset 32  int[2n] the slots, slot 0 is unused
+ *
+ * A saved file is opened with FileChannel.map: the queries read the mapped pages directly and the updates write
+ * through to them, so opening a tree takes no rebuild however large it is.
+ * A file is written next to its final path and then renamed over it, so a crash during save leaves the previous
+ * file whole, and a tree can be saved over the file it was opened from.
+ */
+public final class SegmentTreeFile {
+
+    public static final int MAGIC = 0x53454754;
+    public static final int VERSION = 1;
+    public static final int KIND_MAX = 1;
+    public static final int KIND_MIN = 2;
+    public static final int KIND_SUM = 3;
+    protected static final int HEADER_BYTES = 32;
+    protected static final int COPY_INTS = 1 << 16;
+
+    private SegmentTreeFile() {
+    }
+
+    /**
+     * Saves a segment tree to a file, replacing the file if it exists.
+     * @param tree a Maximum, Minimum or Summation SegmentTreeByArray
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(SegmentTreeByArray tree, Path path) throws IOException {
+        save(tree, path, 0);
+    }
+
+    /**
+     * Saves a segment tree to a file as the snapshot of an update log, replacing the file if it exists.
+     * @param tree a Maximum, Minimum or Summation SegmentTreeByArray
+     * @param path the file to write
+     * @param lsn the LSN of the last log frame the tree contains
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(SegmentTreeByArray tree, Path path, long lsn) throws IOException {
+        int kind = kindOf(tree);
+        int[] values = tree.toArray();
+        long slots = 2L * values.length;
+        int chunkShift = OffHeapSegmentTreeByArray.DEFAULT_CHUNK_SHIFT;
+        Path temp = tempPath(path);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeHeader(channel, kind, chunkShift, values.length, lsn);
+                OffHeapSegmentTreeByArray mapped = create(kind, map(channel, slots, chunkShift, FileChannel.MapMode.READ_WRITE), values.length, chunkShift);
+                mapped.fill(i -> values[(int)i]);
+                mapped.force();
+                channel.force(true);
+            }
+            replace(temp, path);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Saves an off-heap segment tree to a file, replacing the file if it exists.
+     * The slots are already in the file layout, so they are streamed buffer by buffer without a rebuild and
+     * without copying the tree to the heap. This is the way to save trees with more than Integer.MAX_VALUE elements.
+     * @param tree a Maximum, Minimum or Summation OffHeapSegmentTreeByArray
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(OffHeapSegmentTreeByArray tree, Path path) throws IOException {
+        save(tree, path, 0);
+    }
+
+    /**
+     * Saves an off-heap segment tree to a file as the snapshot of an update log, replacing the file if it exists.
+     * @param tree a Maximum, Minimum or Summation OffHeapSegmentTreeByArray
+     * @param path the file to write
+     * @param lsn the LSN of the last log frame the tree contains
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(OffHeapSegmentTreeByArray tree, Path path, long lsn) throws IOException {
+        int kind = kindOf(tree);
+        Path temp = tempPath(path);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeHeader(channel, kind, OffHeapSegmentTreeByArray.DEFAULT_CHUNK_SHIFT, tree.longSize(), lsn);
+                writeSlots(channel, tree);
+                channel.force(true);
+            }
+            replace(temp, path);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Helper function that streams the buffers of an off-heap tree to the slots of a file.
+     * @param channel the open file
+     * @param tree the tree
+     * @throws IOException if the slots cannot be written
+     */
+    private static void writeSlots(FileChannel channel, OffHeapSegmentTreeByArray tree) throws IOException {
+        long position = HEADER_BYTES;
+        ByteBuffer copy = null;
+        for (ByteBuffer buffer : tree.buffers) {
+            ByteBuffer src = buffer.duplicate();
+            src.clear();
+            if (buffer.order() == ByteOrder.LITTLE_ENDIAN) {
+                while (src.hasRemaining()) {
+                    position += channel.write(src, position);
+                }
+                continue;
+            }
+            // the ints of a big-endian buffer are swapped through a small little-endian buffer
+            if (copy == null) {
+                copy = ByteBuffer.allocateDirect(COPY_INTS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            IntBuffer ints = src.order(buffer.order()).asIntBuffer();
+            while (ints.hasRemaining()) {
+                copy.clear();
+                IntBuffer out = copy.asIntBuffer();
+                int count = Math.min(out.remaining(), ints.remaining());
+                for (int i = 0; i < count; i++) {
+                    out.put(ints.get());
+                }
+                copy.limit(count * Integer.BYTES);
+                while (copy.hasRemaining()) {
+                    position += channel.write(copy, position);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper function that returns the path a file is written to before it replaces path.
+     * @param path the final path
+     * @return the temporary path next to it
+     */
+    private static Path tempPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Helper function that renames a complete file over the final path in one step.
+     * @param temp the complete file
+     * @param path the final path
+     * @throws IOException if the file cannot be renamed
+     */
+    private static void replace(Path temp, Path path) throws IOException {
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Helper function that writes the header of a file.
+     * @param channel the open file
+     * @param kind KIND_MAX, KIND_MIN or KIND_SUM
+     * @param chunkShift log2 of the number of slots in every mapped region
+     * @param length the number of elements
+     * @param lsn the LSN of the last log frame the tree contains
+     * @throws IOException if the header cannot be written
+     */
+    private static void writeHeader(FileChannel channel, int kind, int chunkShift, long length, long lsn) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(chunkShift).putLong(length).putLong(lsn);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, HEADER_BYTES - header.remaining());
+        }
+    }
+
+    /**
+     * Opens a saved segment tree. Nothing is read up front: the pages are loaded when queries touch them.
+     * Updates of the returned tree change the file, call force() on it to wait until they are on the disk.
+     * @param path the file to open
+     * @return the tree backed by the file
+     * @throws IOException if the file cannot be read, or is not a segment tree file of a known version
+     */
+    public static OffHeapSegmentTreeByArray open(Path path) throws IOException {
+        return open(path, FileChannel.MapMode.READ_WRITE);
+    }
+
+    /**
+     * Opens a saved segment tree as a private copy: the pages are read from the file, but updates of the returned
+     * tree only change its own copies of the pages and never reach the file.
+     * This is how a snapshot is opened for {@link UpdateLog#recover}, so replaying the log cannot change the snapshot.
+     * @param path the file to open
+     * @return the tree backed by the file, copied on write
+     * @throws IOException if the file cannot be read, or is not a segment tree file of a known version
+     */
+    public static OffHeapSegmentTreeByArray openPrivate(Path path) throws IOException {
+        return open(path, FileChannel.MapMode.PRIVATE);
+    }
+
+    /**
+     * Returns the LSN of the last update log frame that a saved segment tree contains.
+     * @param path the file
+     * @return the LSN, 0 if the tree was not saved as the snapshot of a log
+     * @throws IOException if the file cannot be read, or is not a segment tree file of a known version
+     */
+    public static long readLsn(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel, path).getLong(24);
+        }
+    }
+
+    /**
+     * Helper function that maps a saved segment tree with the given mode.
+     * @param path the file to open
+     * @param mode READ_WRITE to write the updates through to the file, PRIVATE to keep them in memory
+     * @return the tree backed by the file
+     * @throws IOException if the file cannot be read, or is not a segment tree file of a known version
+     */
+    private static OffHeapSegmentTreeByArray open(Path path, FileChannel.MapMode mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = readHeader(channel, path);
+            int kind = header.getInt(8);
+            int chunkShift = header.getInt(12);
+            long length = header.getLong(16);
+            return create(kind, map(channel, 2 * length, chunkShift, mode), length, chunkShift);
+        }
+    }
+
+    /**
+     * Helper function that reads and checks the header of a file.
+     * @param channel the open file
+     * @param path the file, for the error messages
+     * @return the header, read with absolute gets at the offsets of the format
+     * @throws IOException if the file is too short, or the header is not one of a known version
+     */
+    private static ByteBuffer readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException(path + " is too short to be a segment tree file");
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a segment tree file");
+        }
+        int version = header.getInt(4);
+        if (version != VERSION) {
+            throw new IOException(path + " has unsupported format version " + version);
+        }
+        int chunkShift = header.getInt(12);
+        long length = header.getLong(16);
+        if ((chunkShift < 1) || (chunkShift > OffHeapSegmentTreeByArray.MAX_CHUNK_SHIFT) || (length < 0)
+                || (channel.size() != HEADER_BYTES + 2 * length * Integer.BYTES)) {
+            throw new IOException(path + " has a corrupt header");
+        }
+        return header;
+    }
+
+    /**
+     * Helper function that returns the file kind of a tree.
+     * @param tree the tree
+     * @return KIND_MAX, KIND_MIN or KIND_SUM
+     */
+    private static int kindOf(SegmentTreeByArray tree) {
+        if (tree instanceof MaximumSegmentTreeByArray) {
+            return KIND_MAX;
+        }
+        if (tree instanceof MinimumSegmentTreeByArray) {
+            return KIND_MIN;
+        }
+        if (tree instanceof SummationSegmentTreeByArray) {
+            return KIND_SUM;
+        }
+        throw new IllegalArgumentException("Unsupported segment tree type: " + tree.getClass().getName());
+    }
+
+    /**
+     * Helper function that returns the file kind of an off-heap tree.
+     * @param tree the tree
+     * @return KIND_MAX, KIND_MIN or KIND_SUM
+     */
+    private static int kindOf(OffHeapSegmentTreeByArray tree) {
+        if (tree instanceof MaximumOffHeapSegmentTreeByArray) {
+            return KIND_MAX;
+        }
+        if (tree instanceof MinimumOffHeapSegmentTreeByArray) {
+            return KIND_MIN;
+        }
+        if (tree instanceof SummationOffHeapSegmentTreeByArray) {
+            return KIND_SUM;
+        }
+        throw new IllegalArgumentException("Unsupported segment tree type: " + tree.getClass().getName());
+    }
+
+    /**
+     * Helper function that maps the slots of the file, 2^chunkShift slots per region.
+     * The regions stay valid after the channel is closed.
+     * @param channel the open file
+     * @param slots the number of slots
+     * @param chunkShift log2 of the number of slots in every region
+     * @param mode the mapping mode
+     * @return the mapped regions, in little-endian order
+     * @throws IOException if the file cannot be mapped
+     */
+    private static ByteBuffer[] map(FileChannel channel, long slots, int chunkShift, FileChannel.MapMode mode) throws IOException {
+        long chunkInts = 1L << chunkShift;
+        int count = (int)((slots + chunkInts - 1) >> chunkShift);
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int c = 0; c < count; c++) {
+            long ints = Math.min(chunkInts, slots - c * chunkInts);
+            long offset = HEADER_BYTES + c * chunkInts * Integer.BYTES;
+            buffers[c] = channel.map(mode, offset, ints * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return buffers;
+    }
+
+    /**
+     * Helper function that creates the tree of the given kind over the mapped regions.
+     * @param kind KIND_MAX, KIND_MIN or KIND_SUM
+     * @param buffers the mapped regions
+     * @param length the number of elements
+     * @param chunkShift log2 of the number of slots in every region
+     * @return the tree
+     * @throws IOException if the kind is unknown
+     */
+    private static OffHeapSegmentTreeByArray create(int kind, ByteBuffer[] buffers, long length, int chunkShift) throws IOException {
+        switch (kind) {
+            case KIND_MAX:
+                return new MaximumOffHeapSegmentTreeByArray(buffers, length, chunkShift);
+            case KIND_MIN:
+                return new MinimumOffHeapSegmentTreeByArray(buffers, length, chunkShift);
+            case KIND_SUM:
+                return new SummationOffHeapSegmentTreeByArray(buffers, length, chunkShift);
+            default:
+                throw new IOException("Unknown segment tree kind " + kind);
+        }
+    }
+}
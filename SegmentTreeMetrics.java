@@ -0,0 +1,178 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The measurements of an {@link InstrumentedSegmentTree} or {@link InstrumentedNumberAnalyzer}: latency histograms
+ * of queries, updates and builds, and, when {@link Instrumentation#ENABLED} is on, histograms of the nodes visited
+ * and the splits per operation.
+ * Read it with snapshot() (pull), or register it as a JMX MBean. Recording can be paused with setEnabled(false),
+ * which leaves only a volatile read on every operation.
+ */
+public class SegmentTreeMetrics implements SegmentTreeMetricsMBean {
+
+    protected final LatencyHistogram queryNanos = new LatencyHistogram();
+    protected final LatencyHistogram updateNanos = new LatencyHistogram();
+    protected final LatencyHistogram buildNanos = new LatencyHistogram();
+    protected final LatencyHistogram queryNodes = new LatencyHistogram();
+    protected final LatencyHistogram querySplits = new LatencyHistogram();
+    protected final LatencyHistogram updateNodes = new LatencyHistogram();
+    protected volatile boolean enabled = true;
+
+    /**
+     * Records one query.
+     * @param nanos the duration of the query
+     * @param nodes the nodes visited by the query
+     * @param splits the splits of the query
+     */
+    public void recordQuery(long nanos, long nodes, long splits) {
+        this.queryNanos.record(nanos);
+        if (Instrumentation.ENABLED) {
+            this.queryNodes.record(nodes);
+            this.querySplits.record(splits);
+        }
+    }
+
+    /**
+     * Records one update.
+     * @param nanos the duration of the update
+     * @param nodes the nodes visited by the update
+     */
+    public void recordUpdate(long nanos, long nodes) {
+        this.updateNanos.record(nanos);
+        if (Instrumentation.ENABLED) {
+            this.updateNodes.record(nodes);
+        }
+    }
+
+    /**
+     * Records one build.
+     * @param nanos the duration of the build
+     */
+    public void recordBuild(long nanos) {
+        this.buildNanos.record(nanos);
+    }
+
+    /**
+     * Returns the current state of all the histograms, by name:
+     * queryNanos, updateNanos, buildNanos, queryNodes, querySplits and updateNodes.
+     * @return the snapshots
+     */
+    public Map<String, LatencyHistogram.Snapshot> snapshot() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<String, LatencyHistogram.Snapshot>();
+        snapshots.put("queryNanos", this.queryNanos.snapshot());
+        snapshots.put("updateNanos", this.updateNanos.snapshot());
+        snapshots.put("buildNanos", this.buildNanos.snapshot());
+        snapshots.put("queryNodes", this.queryNodes.snapshot());
+        snapshots.put("querySplits", this.querySplits.snapshot());
+        snapshots.put("updateNodes", this.updateNodes.snapshot());
+        return snapshots;
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server as segmenttree:type=SegmentTreeMetrics,name=name.
+     * @param name the name of the instrumented tree
+     * @return the name the MBean was registered with
+     * @throws JMException if the name is taken or invalid
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("segmenttree:type=SegmentTreeMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getQueryCount() {
+        return this.queryNanos.snapshot().getCount();
+    }
+
+    @Override
+    public double getQueryMeanNanos() {
+        return this.queryNanos.snapshot().getMean();
+    }
+
+    @Override
+    public long getQueryP50Nanos() {
+        return this.queryNanos.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getQueryP99Nanos() {
+        return this.queryNanos.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getQueryMaxNanos() {
+        return this.queryNanos.snapshot().getMax();
+    }
+
+    @Override
+    public long getUpdateCount() {
+        return this.updateNanos.snapshot().getCount();
+    }
+
+    @Override
+    public double getUpdateMeanNanos() {
+        return this.updateNanos.snapshot().getMean();
+    }
+
+    @Override
+    public long getUpdateP99Nanos() {
+        return this.updateNanos.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getUpdateMaxNanos() {
+        return this.updateNanos.snapshot().getMax();
+    }
+
+    @Override
+    public long getBuildCount() {
+        return this.buildNanos.snapshot().getCount();
+    }
+
+    @Override
+    public long getBuildMaxNanos() {
+        return this.buildNanos.snapshot().getMax();
+    }
+
+    @Override
+    public double getMeanNodesPerQuery() {
+        return this.queryNodes.snapshot().getMean();
+    }
+
+    @Override
+    public double getMeanSplitsPerQuery() {
+        return this.querySplits.snapshot().getMean();
+    }
+
+    @Override
+    public double getMeanNodesPerUpdate() {
+        return this.updateNodes.snapshot().getMean();
+    }
+
+    /**
+     * Clears all the histograms.
+     */
+    @Override
+    public void reset() {
+        this.queryNanos.reset();
+        this.updateNanos.reset();
+        this.buildNanos.reset();
+        this.queryNodes.reset();
+        this.querySplits.reset();
+        this.updateNodes.reset();
+    }
+}
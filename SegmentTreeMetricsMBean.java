@@ -0,0 +1,39 @@
+/**
+ * The JMX view of a {@link SegmentTreeMetrics}. Times are in nanoseconds.
+ */
+public interface SegmentTreeMetricsMBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getQueryCount();
+
+    double getQueryMeanNanos();
+
+    long getQueryP50Nanos();
+
+    long getQueryP99Nanos();
+
+    long getQueryMaxNanos();
+
+    long getUpdateCount();
+
+    double getUpdateMeanNanos();
+
+    long getUpdateP99Nanos();
+
+    long getUpdateMaxNanos();
+
+    long getBuildCount();
+
+    long getBuildMaxNanos();
+
+    double getMeanNodesPerQuery();
+
+    double getMeanSplitsPerQuery();
+
+    double getMeanNodesPerUpdate();
+
+    void reset();
+}
@@ -4,6 +4,9 @@ public class SegmentTreeNode extends TreeNode {
     private int min;
     private int max;
     private int sum;
+    private int lazyAdd;
+    private int lazyAssign;
+    private boolean hasLazyAssign;
 
     /**
      * Constructs a new SegmentTreeNode with the given start and end indices.
@@ -107,6 +110,61 @@ public class SegmentTreeNode extends TreeNode {
         this.sum = sum;
     }
 
+    /**
+     * Returns the pending addition that was not yet pushed to the children of this node.
+     *
+     * @return The pending addition.
+     */
+    public int getLazyAdd() {
+        return lazyAdd;
+    }
+
+    /**
+     * Sets the pending addition that was not yet pushed to the children of this node.
+     *
+     * @param lazyAdd The pending addition.
+     */
+    public void setLazyAdd(int lazyAdd) {
+        this.lazyAdd = lazyAdd;
+    }
+
+    /**
+     * Returns the pending assignment that was not yet pushed to the children of this node.
+     * Only meaningful when {@link #hasLazyAssign()} is true.
+     *
+     * @return The pending assignment.
+     */
+    public int getLazyAssign() {
+        return lazyAssign;
+    }
+
+    /**
+     * Sets the pending assignment that was not yet pushed to the children of this node.
+     *
+     * @param lazyAssign The pending assignment.
+     */
+    public void setLazyAssign(int lazyAssign) {
+        this.lazyAssign = lazyAssign;
+    }
+
+    /**
+     * Returns whether this node has a pending assignment for its children.
+     *
+     * @return true if there is a pending assignment.
+     */
+    public boolean hasLazyAssign() {
+        return hasLazyAssign;
+    }
+
+    /**
+     * Sets whether this node has a pending assignment for its children.
+     *
+     * @param hasLazyAssign true if there is a pending assignment.
+     */
+    public void setHasLazyAssign(boolean hasLazyAssign) {
+        this.hasLazyAssign = hasLazyAssign;
+    }
+
     @Override
     public String toString() {
         return "[" + start + "," + end + "] " + "min=" + min + " max=" + max + " sum=" + sum;
@@ -0,0 +1,91 @@
+/**
+ * A fixed-capacity window over the last pushed values, answering rolling aggregates.
+ * The values are kept in a segment tree used as a ring buffer: push overwrites the slot of the oldest value with
+ * one O(log n) update, and queryLast(k) answers the k newest values with one range query, or two when the range
+ * wraps around the end of the buffer. Nothing is allocated after construction.
+ * Subclasses choose the array segment tree and how the two parts of a wrapped range are combined.
+ */
+public abstract class SlidingWindow {
+
+    protected final SegmentTree tree;
+    protected final int capacity;
+    protected int head; // the slot of the next push
+    protected int count;
+
+    /**
+     * Constructor for a window over the slots of the given tree.
+     * @param tree a segment tree with one slot per value of the window
+     */
+    protected SlidingWindow(SegmentTree tree) {
+        if (tree.size() < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.tree = tree;
+        this.capacity = tree.size();
+        this.head = 0;
+        this.count = 0;
+    }
+
+    /**
+     * Helper function used to combine the results of the two parts of a wrapped range.
+     * Implemented in the subclasses.
+     *
+     * @param older the result of the older part
+     * @param newer the result of the newer part
+     * @return the combined result
+     */
+    protected abstract int combine(int older, int newer);
+
+    /**
+     * Adds a value to the window. Once the window is full, the oldest value is dropped.
+     * @param value the new value
+     */
+    public void push(int value) {
+        this.tree.update(this.head, value);
+        this.head = (this.head + 1 == this.capacity) ? 0 : this.head + 1;
+        if (this.count < this.capacity) {
+            this.count++;
+        }
+    }
+
+    /**
+     * Queries the k newest values of the window.
+     * @param k the number of values, between 1 and size()
+     * @return the aggregate of the k newest values
+     */
+    public int queryLast(int k) {
+        if ((k < 1) || (k > this.count)) {
+            throw new IllegalArgumentException("k must be between 1 and " + this.count + ", got " + k);
+        }
+        int end = (this.head == 0) ? this.capacity - 1 : this.head - 1;
+        int start = end - k + 1;
+        if (start >= 0) {
+            return this.tree.queryRange(start, end);
+        }
+        return combine(this.tree.queryRange(start + this.capacity, this.capacity - 1), this.tree.queryRange(0, end));
+    }
+
+    /**
+     * Queries all the values in the window.
+     * @return the aggregate of the window
+     */
+    public int queryAll() {
+        return queryLast(this.count);
+    }
+
+    /**
+     * Returns the number of values in the window.
+     * @return the number of values, at most capacity()
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the maximal number of values in the window.
+     * @return the capacity of the window
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * This abstract class represents a sparse table for idempotent range queries (min, max).
+ * this.table[k][i] holds the combination of the 2^k elements starting at i, so any range [left, right] is covered
+ * by two overlapping rows of the same level and answered in O(1).
+ * The table is static: it is built once in O(n log n) and rejects updates.
+ */
+public abstract class SparseTable implements SegmentTree {
+
+    protected int[][] table;
+    protected int size;
+
+    /**
+     * Constructor for initializing the sparse table with the given input array.
+     * @param arr the input array
+     */
+    public SparseTable(int[] arr) {
+        build(arr);
+    }
+
+    /**
+     * Builds the sparse table from the input array. Level k is built from two halves of level k-1.
+     * @param arr the input array
+     */
+    @Override
+    public void build(int[] arr) {
+        this.size = arr.length;
+        int levels = (this.size == 0) ? 1 : log2(this.size) + 1;
+        this.table = new int[levels][];
+        this.table[0] = arr.clone();
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int[] prev = this.table[k - 1];
+            int[] row = new int[this.size - (1 << k) + 1];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = combine(prev[i], prev[i + half]);
+            }
+            this.table[k] = row;
+        }
+    }
+
+    /**
+     * Helper function that returns floor(log2(n)) for a positive n.
+     * @param n a positive number
+     * @return the index of the highest set bit of n
+     */
+    protected static int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+    /**
+     * Helper function used to combine two values according to the table type. Implemented in the subclasses,
+     * and must be idempotent (combine(x, x) == x) since the two rows of a query may overlap.
+     *
+     * @param left the first value
+     * @param right the second value
+     * @return the combined value
+     */
+    protected abstract int combine(int left, int right);
+
+    /**
+     * Queries the sparse table for a range of elements in O(1) with two table lookups.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the result of the query operation
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        int k = log2(right - left + 1);
+        int[] row = this.table[k];
+        return combine(row[left], row[right - (1 << k) + 1]);
+    }
+
+    /**
+     * Not supported, a sparse table is static. Call build with the new array instead.
+     * @param index the index of the element to update
+     * @param value the new value of the element
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void update(int index, int value) {
+        throw new UnsupportedOperationException("SparseTable is static, rebuild it with build(int[]) instead of update");
+    }
+
+    /**
+     * Returns the number of elements in the original array that the table was built from.
+     *
+     * @return the size of the original array
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a string representation of the sparse table, level by level separated by "|".
+     * For example, for the max table of {10,15,55,15,9} " [ 10 15 55 15 9 | 15 55 55 15 | 55 55 ] " will be returned
+     * @return a string representation of the sparse table
+     */
+    @Override
+    public String toString() {
+        StringBuilder daTable = new StringBuilder(" [");
+        for (int k = 0; k < this.table.length; k++) {
+            if (k > 0) {
+                daTable.append(" |");
+            }
+            for (int i = 0; i < this.table[k].length; i++) {
+                daTable.append(' ').append(this.table[k][i]);
+            }
+        }
+        daTable.append(" ] ");
+        return daTable.toString();
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * A Fenwick (binary indexed) tree for range sums.
+ * this.tree[i] (1-based) holds the sum of the elements in (i - lowbit(i), i], where lowbit(i) = i & -i,
+ * so the whole structure takes n+1 slots and both update and query are short loops over the bits of the index.
+ */
+public class SummationFenwickTree implements SegmentTree {
+
+    protected int[] tree;
+    protected int size;
+
+    /**
+     * Constructor for creating a Fenwick tree from an input array
+     * @param arr Input array for which the tree needs to be constructed
+     */
+    public SummationFenwickTree(int[] arr) {
+        build(arr);
+    }
+
+    /**
+     * Builds the tree from the input array in linear time.
+     * Every slot adds itself once to the next slot that covers it.
+     * @param arr the input array
+     */
+    @Override
+    public void build(int[] arr) {
+        this.size = arr.length;
+        this.tree = new int[this.size + 1];
+        System.arraycopy(arr, 0, this.tree, 1, this.size);
+        for (int i = 1; i <= this.size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= this.size) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+    }
+
+    /**
+     * Helper function that returns the sum of the first count elements.
+     * @param count the number of elements from the start of the array
+     * @return the sum of the elements in [0, count-1]
+     */
+    protected int prefixSum(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= (i & -i)) {
+            sum += this.tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Queries the tree for the sum of a range of elements.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the sum of the values in the range
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        return prefixSum(right + 1) - prefixSum(left);
+    }
+
+    /**
+     * Updates the value at the specified index.
+     * The tree only holds sums, so the old value is read back first and the difference is added.
+     * @param index the index of the element to update in the array
+     * @param value the new value to replace the existing value
+     */
+    @Override
+    public void update(int index, int value) {
+        add(index, value - queryRange(index, index));
+    }
+
+    /**
+     * Adds delta to the element at the specified index.
+     * @param index the index of the element in the array
+     * @param delta the value added to the element
+     */
+    public void add(int index, int delta) {
+        for (int i = index + 1; i <= this.size; i += (i & -i)) {
+            this.tree[i] += delta;
+        }
+    }
+
+    /**
+     * Adds delta to every element in the range, one element at a time without reading the old values.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param delta the value to add to every element in the range
+     */
+    @Override
+    public void rangeAdd(int left, int right, int delta) {
+        for (int i = left; i <= right; i++) {
+            add(i, delta);
+        }
+    }
+
+    /**
+     * Returns the number of elements in the original array that the tree was built from.
+     *
+     * @return the size of the original array
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a string representation of the tree.
+     * The slots 1..n are printed according to their indexes in the array.
+     * For example, for {10,15,55,15,9,12} " [ 10 25 55 95 9 21 ] " will be returned
+     * @return a string representation of the tree
+     */
+    @Override
+    public String toString() {
+        StringBuilder daTree = new StringBuilder(" [");
+        for (int i = 1; i <= this.size; i++) {
+            daTree.append(' ').append(this.tree[i]);
+        }
+        daTree.append(" ] ");
+        return daTree.toString();
+    }
+}
@@ -0,0 +1,32 @@
+public class SummationIterativeSegmentTreeByArray extends IterativeSegmentTreeByArray {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public SummationIterativeSegmentTreeByArray(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Helper function used to combine two nodes based on their sum value
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the sum value of the two nodes
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return left + right;
+    }
+
+    /**
+     * Returns the neutral value of the sum operation.
+     *
+     * @return 0
+     */
+    @Override
+    protected int identity() {
+        return 0;
+    }
+}
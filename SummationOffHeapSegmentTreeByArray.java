@@ -0,0 +1,64 @@
+import java.nio.ByteBuffer;
+import java.util.function.LongToIntFunction;
+
+public class SummationOffHeapSegmentTreeByArray extends OffHeapSegmentTreeByArray {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public SummationOffHeapSegmentTreeByArray(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Constructor for creating a Segment Tree with length elements, element i being values(i)
+     * @param length the number of elements
+     * @param values returns the initial value of every index
+     */
+    public SummationOffHeapSegmentTreeByArray(long length, LongToIntFunction values){
+        super(length, values);
+    }
+
+    /**
+     * Constructor for creating a Segment Tree with length elements, with a given buffer size
+     * @param length the number of elements
+     * @param values returns the initial value of every index
+     * @param chunkShift log2 of the number of ints in every buffer
+     */
+    public SummationOffHeapSegmentTreeByArray(long length, LongToIntFunction values, int chunkShift){
+        super(length, values, chunkShift);
+    }
+
+    /**
+     * Constructor for a Segment Tree over buffers that already hold a built tree, used by SegmentTreeFile
+     * @param buffers the buffers holding the slots
+     * @param length the number of elements
+     * @param chunkShift log2 of the number of ints in every buffer
+     */
+    protected SummationOffHeapSegmentTreeByArray(ByteBuffer[] buffers, long length, int chunkShift){
+        super(buffers, length, chunkShift);
+    }
+
+    /**
+     * Helper function used to combine two nodes based on their sum value
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the sum value of the two nodes
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return left + right;
+    }
+
+    /**
+     * Returns the neutral value of the sum operation.
+     *
+     * @return 0
+     */
+    @Override
+    protected int identity() {
+        return 0;
+    }
+}
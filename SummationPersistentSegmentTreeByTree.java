@@ -0,0 +1,22 @@
+public class SummationPersistentSegmentTreeByTree extends PersistentSegmentTreeByTree {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public SummationPersistentSegmentTreeByTree(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Queries the Segment Tree for the Summation value in the given range, as it was in the given version.
+     * @param version the version number
+     * @param left Start index of the query range
+     * @param right End index of the query range
+     * @return Summation value in the given range of the given version
+     */
+    @Override
+    public int queryRange(int version, int left, int right) {
+        return querySumHelper(getRoot(version), left, right);
+    }
+}
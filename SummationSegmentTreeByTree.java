@@ -1,3 +1,5 @@
+import java.util.concurrent.ForkJoinPool;
+
 public class SummationSegmentTreeByTree extends SegmentTreeByTree {
     
     /**
@@ -8,6 +10,16 @@ public class SummationSegmentTreeByTree extends SegmentTreeByTree {
         super(arr);
     }
 
+    /**
+     * Constructor for creating a Segment Tree from an input array, built in parallel
+     * @param arr Input array for which Segment Tree needs to be constructed
+     * @param pool the pool that runs the build tasks
+     * @param threshold the maximal segment length that is built by a single task
+     */
+    public SummationSegmentTreeByTree(int[] arr, ForkJoinPool pool, int threshold){
+        super(arr, pool, threshold);
+    }
+
     /**
      * Queries the Segment Tree for the Summation value in the given range.
      * @param left Start index of the query range
@@ -16,7 +28,7 @@ public class SummationSegmentTreeByTree extends SegmentTreeByTree {
      */
     @Override
     public int queryRange(int left, int right) {
-        return queryRangeHelper(this.root, left, right).getSum();
+        return querySum(left, right);
     }
 
     @Override
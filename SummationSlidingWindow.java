@@ -0,0 +1,22 @@
+public class SummationSlidingWindow extends SlidingWindow {
+
+    /**
+     * Constructor for creating an empty window over a SummationSegmentTreeByArray
+     * @param capacity the number of newest values the window keeps
+     */
+    public SummationSlidingWindow(int capacity){
+        super(new SummationSegmentTreeByArray(new int[capacity]));
+    }
+
+    /**
+     * Helper function used to combine the two parts of a wrapped range by their sum value
+     *
+     * @param older the result of the older part
+     * @param newer the result of the newer part
+     * @return the sum of the two results
+     */
+    @Override
+    protected int combine(int older, int newer) {
+        return older + newer;
+    }
+}
@@ -0,0 +1,48 @@
+public class SummationWideSegmentTreeByArray extends WideSegmentTreeByArray {
+
+    /**
+     * Constructor for creating a Segment Tree from an input array
+     * @param arr Input array for which Segment Tree needs to be constructed
+     */
+    public SummationWideSegmentTreeByArray(int[] arr){
+        super(arr);
+    }
+
+    /**
+     * Helper function used to combine a block of slots based on their sum value
+     *
+     * @param acc the value combined so far
+     * @param from the first slot (inclusive)
+     * @param to the last slot (exclusive)
+     * @return the sum value of acc and the slots
+     */
+    @Override
+    protected int scan(int acc, int from, int to) {
+        for (int i = from; i < to; i++) {
+            acc = acc + this.tree[i];
+        }
+        return acc;
+    }
+
+    /**
+     * Helper function used to combine two nodes based on their sum value
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the sum value of the two nodes
+     */
+    @Override
+    protected int combine(int left, int right) {
+        return left + right;
+    }
+
+    /**
+     * Returns the neutral value of the sum operation.
+     *
+     * @return 0
+     */
+    @Override
+    protected int identity() {
+        return 0;
+    }
+}
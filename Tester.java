@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * This is a testing framework. 
  */
@@ -21,9 +27,40 @@ public class Tester {
         testMinimumSegmentTreeByArray();
         testSummationSegmentTreeByArray();
 
+        testMaximumIterativeSegmentTreeByArray();
+        testMinimumIterativeSegmentTreeByArray();
+        testSummationIterativeSegmentTreeByArray();
+
+        testMaximumSegmentTreeByArena();
+        testMinimumSegmentTreeByArena();
+        testSummationSegmentTreeByArena();
+
+        testRangeUpdates();
+        testParallelBuild();
+        testBatchUpdates();
+        testBatchQueries();
+        testConcurrentSegmentTree();
+        testPersistentSegmentTreeByTree();
+        testSummationFenwickTree();
+        testMaximumSparseTable();
+        testMinimumSparseTable();
+        testWideSegmentTreeByArray();
+        testOffHeapSegmentTreeByArray();
+        testSegmentTreeFile();
+        testUpdateLog();
+        testDynamicSegmentTreeByTree();
+        testAppend();
+        testSlidingWindow();
+        testInstrumentation();
+        testCachingNumberAnalyzer();
+        testIntNumberAnalyzer();
+        testParitySegmentTree();
+
         //NumberAnalyzers
         testNumberAnalyzerByTrees();
         testNumberAnalyzerByArrays();
+        testNumberAnalyzerByFusedArray();
+        testNumberAnalyzerBySharedTree();
 
         // Notifying the user that the code have passed all tests.
         if (testPassed) {
@@ -167,6 +204,951 @@ public class Tester {
         test(sstba.size() == 6, "Size of {10,15,55,15,9,12} should be 6");
     }
 
+    /**
+     * Checks the MaximumIterativeSegmentTreeByArray class.
+     */
+    private static void testMaximumIterativeSegmentTreeByArray() {
+
+        MaximumIterativeSegmentTreeByArray mistba = new MaximumIterativeSegmentTreeByArray(new int[]{10,15,55,15,9,12});
+
+        test(mistba.toString().equals(" [ 55 55 15 55 12 10 15 55 15 9 12 ] "),"The toString of {10,15,55,15,9,12} should be ' [ 55 55 15 55 12 10 15 55 15 9 12 ] ' got: '" + mistba.toString()+ " '");
+
+        test(mistba.queryRange(0,5) == 55, "The max of {10,15,55,15,9,12} between indexes [0:5] should be 55");
+
+        test(mistba.queryRange(3,5) == 15, "The max of {10,15,55,15,9,12} between indexes [3:5] should be 15");
+
+        mistba.update(0,80);
+
+        test(mistba.toString().equals(" [ 80 55 80 55 12 80 15 55 15 9 12 ] "),"The toString of {80,15,55,15,9,12} should be ' [ 80 55 80 55 12 80 15 55 15 9 12 ] ' got: '" + mistba.toString()+ " '");
+
+        test(mistba.queryRange(0,5) == 80, "After update index 0 from {10,15,55,15,9,12} to 80, the max between indexes [0:5] should be 80");
+
+        test(mistba.size() == 6, "Size of {10,15,55,15,9,12} should be 6");
+    }
+
+    /**
+     * Checks the MinimumIterativeSegmentTreeByArray class.
+     */
+    private static void testMinimumIterativeSegmentTreeByArray() {
+
+        MinimumIterativeSegmentTreeByArray ministba = new MinimumIterativeSegmentTreeByArray(new int[]{10,15,55,15,9,12});
+
+        test(ministba.toString().equals(" [ 9 9 10 15 9 10 15 55 15 9 12 ] "),"The toString of {10,15,55,15,9,12} should be ' [ 9 9 10 15 9 10 15 55 15 9 12 ] ' got: '" + ministba.toString()+ " '");
+
+        test(ministba.queryRange(0,2) == 10, "The min of {10,15,55,15,9,12} between indexes [0:2] should be 10");
+
+        ministba.update(4,80);
+
+        test(ministba.toString().equals(" [ 10 12 10 15 12 10 15 55 15 80 12 ] "),"The toString of {10,15,55,15,80,12} should be ' [ 10 12 10 15 12 10 15 55 15 80 12 ] ' got: '" + ministba.toString()+ " '");
+
+        test(ministba.queryRange(2,4) == 15, "After update index 4 from {10,15,55,15,9,12} to 80, the min between indexes [2:4] should be 15");
+
+        test(ministba.size() == 6, "Size of {10,15,55,15,9,12} should be 6");
+    }
+
+    /**
+     * Checks the SummationIterativeSegmentTreeByArray class.
+     */
+    private static void testSummationIterativeSegmentTreeByArray() {
+
+        SummationIterativeSegmentTreeByArray sistba = new SummationIterativeSegmentTreeByArray(new int[]{10,15,55,15,9,12});
+
+        test(sistba.toString().equals(" [ 116 91 25 70 21 10 15 55 15 9 12 ] "),"The toString of {10,15,55,15,9,12} should be ' [ 116 91 25 70 21 10 15 55 15 9 12 ] ' got: '" + sistba.toString()+ " '");
+
+        test(sistba.queryRange(4,5) == 21, "The sum of {10,15,55,15,9,12} between indexes [4:5] should be 21");
+
+        sistba.update(5,80);
+
+        test(sistba.toString().equals(" [ 184 159 25 70 89 10 15 55 15 9 80 ] "),"The toString of {10,15,55,15,9,80} should be ' [ 184 159 25 70 89 10 15 55 15 9 80 ] ' got: '" + sistba.toString()+ " '");
+
+        test(sistba.queryRange(1,5) == 174, "After update index 5 from {10,15,55,15,9,12} to 80, the sum between indexes [1:5] should be 174");
+
+        test(sistba.size() == 6, "Size of {10,15,55,15,9,12} should be 6");
+
+        // out of range indices must not write internal nodes or the padding leaves added by append
+        SummationIterativeSegmentTreeByArray grown = new SummationIterativeSegmentTreeByArray(new int[]{1,2,3,4});
+        grown.append(5);
+        int rejected = 0;
+        for (int index : new int[]{-3, 5, 7}) {
+            try {
+                grown.update(index, 100);
+            } catch (IndexOutOfBoundsException e) {
+                rejected++;
+            }
+        }
+        for (int[] range : new int[][]{{-1,2}, {3,2}, {0,5}}) {
+            try {
+                grown.queryRange(range[0], range[1]);
+            } catch (IndexOutOfBoundsException e) {
+                rejected++;
+            }
+        }
+        test(rejected == 6, "All 3 bad updates and 3 bad queries should throw, got " + rejected);
+        test(grown.queryRange(0,4) == 15, "After the rejected updates the sum of {1,2,3,4,5} should stay 15");
+    }
+
+    /**
+     * Checks the MaximumSegmentTreeByArena class.
+     */
+    private static void testMaximumSegmentTreeByArena() {
+
+        MaximumSegmentTreeByArena mstbar = new MaximumSegmentTreeByArena(new int[]{60,10,5,15,6});
+
+        test(mstbar.queryRange(0,4) == 60, "The max of {60,10,5,15,6} between indexes [0:4] should be 60");
+
+        test(mstbar.toString().equals(" [ 60 60 60 60 10 5 15 15 6 ] "),"The toString of {60,10,5,15,6} should be ' [ 60 60 60 60 10 5 15 15 6 ] ' got: '" + mstbar.toString()+ " '");
+
+        mstbar.update(1,80);
+
+        test(mstbar.queryRange(0,4) == 80, "After update index 1 from {60,10,5,15,6} to 80, the max between indexes [0:4] should be 80");
+
+        test(mstbar.toString().equals(" [ 80 80 80 60 80 5 15 15 6 ] "),"The toString of {60,80,5,15,6} should be ' [ 80 80 80 60 80 5 15 15 6 ] ' got: '" + mstbar.toString()+ " '");
+
+        test(mstbar.size() == 5, "Size of {60,10,5,15,6} should be 5");
+
+        test(mstbar.getLeft(mstbar.getRoot()) == mstbar.getRoot() + 1 && mstbar.getLeft(mstbar.getRight(mstbar.getRoot())) == mstbar.getRight(mstbar.getRoot()) + 1, "The left child of a node should be the next node");
+        test(mstbar.isLeaf(3) && mstbar.getLeft(3) == SegmentTreeByArena.NO_CHILD, "Node 3 of {60,10,5,15,6} should be the leaf 60 without children");
+        test(SegmentTreeByArena.arenaInts(1 << 28) == Integer.MAX_VALUE - 3, "The arena of 2^28 elements should take 2^31-4 ints");
+        try {
+            SegmentTreeByArena.arenaInts((1 << 28) + 1);
+            test(false, "The arena of 2^28+1 elements should not fit an int array");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Checks the MinimumSegmentTreeByArena class.
+     */
+    private static void testMinimumSegmentTreeByArena() {
+
+        MinimumSegmentTreeByArena minstbar = new MinimumSegmentTreeByArena(new int[]{60,10,5,15,6});
+
+        test(minstbar.queryRange(0,4) == 5, "The min of {60,10,5,15,6} between indexes [0:4] should be 5");
+
+        test(minstbar.toString().equals(" [ 5 5 10 60 10 5 6 15 6 ] "),"The toString of {60,10,5,15,6} should be ' [ 5 5 10 60 10 5 6 15 6 ] ' got: '" + minstbar.toString()+ " '");
+
+        minstbar.update(1,2);
+
+        test(minstbar.queryRange(0,4) == 2, "After update index 1 from {60,10,5,15,6} to 2, the min between indexes [0:4] should be 2");
+
+        test(minstbar.toString().equals(" [ 2 2 2 60 2 5 6 15 6 ] "),"The toString of {60,2,5,15,6} should be ' [ 2 2 2 60 2 5 6 15 6 ] ' got: '" + minstbar.toString()+ " '");
+
+        test(minstbar.size() == 5, "Size of {60,10,5,15,6} should be 5");
+    }
+
+    /**
+     * Checks the SummationSegmentTreeByArena class.
+     */
+    private static void testSummationSegmentTreeByArena() {
+
+        SummationSegmentTreeByArena sstbar = new SummationSegmentTreeByArena(new int[]{60,10,5,15,6});
+
+        test(sstbar.queryRange(0,4) == 96, "The sum of {60,10,5,15,6} between indexes [0:4] should be 96");
+
+        test(sstbar.toString().equals(" [ 96 75 70 60 10 5 21 15 6 ] "),"The toString of {60,10,5,15,6} should be ' [ 96 75 70 60 10 5 21 15 6 ] ' got: '" + sstbar.toString()+ " '");
+
+        sstbar.update(4,10);
+
+        test(sstbar.queryRange(0,4) == 100, "After update index 4 from {60,10,5,15,6} to 10, the sum between indexes [0:4] should be 100");
+
+        test(sstbar.toString().equals(" [ 100 75 70 60 10 5 25 15 10 ] "),"The toString of {60,10,5,15,10} should be ' [ 100 75 70 60 10 5 25 15 10 ] ' got: '" + sstbar.toString()+ " '");
+
+        test(sstbar.size() == 5, "Size of {60,10,5,15,6} should be 5");
+    }
+
+    /**
+     * Checks rangeAdd and rangeAssign on every segment tree type.
+     * {10,15,55,15,9,12} -> rangeAdd(1,4,5) -> rangeAssign(2,3,7) -> rangeAdd(0,3,-2) -> update(3,30) gives {8,18,5,30,14,12}
+     */
+    private static void testRangeUpdates() {
+
+        int[] arr = {10,15,55,15,9,12};
+        SegmentTree[] maxTrees = {new MaximumSegmentTreeByArray(arr), new MaximumSegmentTreeByTree(arr), new MaximumIterativeSegmentTreeByArray(arr), new MaximumSegmentTreeByArena(arr)};
+        SegmentTree[] minTrees = {new MinimumSegmentTreeByArray(arr), new MinimumSegmentTreeByTree(arr), new MinimumIterativeSegmentTreeByArray(arr), new MinimumSegmentTreeByArena(arr)};
+        SegmentTree[] sumTrees = {new SummationSegmentTreeByArray(arr), new SummationSegmentTreeByTree(arr), new SummationIterativeSegmentTreeByArray(arr), new SummationSegmentTreeByArena(arr)};
+
+        for (int i = 0; i < maxTrees.length; i++) {
+            SegmentTree[] trees = {maxTrees[i], minTrees[i], sumTrees[i]};
+            for (SegmentTree tree : trees) {
+                tree.rangeAdd(1,4,5);
+                tree.rangeAssign(2,3,7);
+                tree.rangeAdd(0,3,-2);
+                tree.update(3,30);
+            }
+            String name = maxTrees[i].getClass().getSimpleName();
+
+            test(maxTrees[i].queryRange(0,5) == 30, name + ": the max of {8,18,5,30,14,12} between indexes [0:5] should be 30");
+            test(maxTrees[i].queryRange(0,2) == 18, name + ": the max of {8,18,5,30,14,12} between indexes [0:2] should be 18");
+            test(minTrees[i].queryRange(0,5) == 5, name + ": the min of {8,18,5,30,14,12} between indexes [0:5] should be 5");
+            test(minTrees[i].queryRange(3,5) == 12, name + ": the min of {8,18,5,30,14,12} between indexes [3:5] should be 12");
+            test(sumTrees[i].queryRange(0,5) == 87, name + ": the sum of {8,18,5,30,14,12} between indexes [0:5] should be 87");
+            test(sumTrees[i].queryRange(1,3) == 53, name + ": the sum of {8,18,5,30,14,12} between indexes [1:3] should be 53");
+        }
+    }
+
+    /**
+     * Checks that the parallel build gives the same trees as the sequential build.
+     */
+    private static void testParallelBuild() {
+
+        int[] arr = new int[37];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = (i * 7919) % 101 - 50;
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        SegmentTree[] sequential = {new MaximumSegmentTreeByArray(arr), new MinimumSegmentTreeByArray(arr), new SummationSegmentTreeByArray(arr),
+                                    new MaximumSegmentTreeByTree(arr), new MinimumSegmentTreeByTree(arr), new SummationSegmentTreeByTree(arr)};
+        SegmentTree[] parallel = {new MaximumSegmentTreeByArray(arr, pool, 3), new MinimumSegmentTreeByArray(arr, pool, 3), new SummationSegmentTreeByArray(arr, pool, 3),
+                                  new MaximumSegmentTreeByTree(arr, pool, 3), new MinimumSegmentTreeByTree(arr, pool, 3), new SummationSegmentTreeByTree(arr, pool, 3)};
+        pool.shutdown();
+
+        for (int i = 0; i < sequential.length; i++) {
+            String name = sequential[i].getClass().getSimpleName();
+            test(parallel[i].toString().equals(sequential[i].toString()), name + ": the parallel build should be ' " + sequential[i] + " ' got: '" + parallel[i] + " '");
+            test(parallel[i].size() == 37, name + ": size of the parallel build should be 37");
+        }
+    }
+
+    /**
+     * Checks updateAll on every segment tree type.
+     * {10,15,55,15,9,12} -> updateAll({5,0,5,3}, {1,40,7,2}) gives {40,15,55,2,9,7} (the last update of index 5 wins)
+     */
+    private static void testBatchUpdates() {
+
+        int[] arr = {10,15,55,15,9,12};
+        SegmentTree[] maxTrees = {new MaximumSegmentTreeByArray(arr), new MaximumSegmentTreeByTree(arr), new MaximumIterativeSegmentTreeByArray(arr), new MaximumSegmentTreeByArena(arr)};
+        SegmentTree[] minTrees = {new MinimumSegmentTreeByArray(arr), new MinimumSegmentTreeByTree(arr), new MinimumIterativeSegmentTreeByArray(arr), new MinimumSegmentTreeByArena(arr)};
+        SegmentTree[] sumTrees = {new SummationSegmentTreeByArray(arr), new SummationSegmentTreeByTree(arr), new SummationIterativeSegmentTreeByArray(arr), new SummationSegmentTreeByArena(arr)};
+
+        for (int i = 0; i < maxTrees.length; i++) {
+            SegmentTree[] trees = {maxTrees[i], minTrees[i], sumTrees[i]};
+            for (SegmentTree tree : trees) {
+                tree.updateAll(new int[]{5,0,5,3}, new int[]{1,40,7,2});
+            }
+            String name = maxTrees[i].getClass().getSimpleName();
+
+            test(maxTrees[i].queryRange(0,5) == 55, name + ": the max of {40,15,55,2,9,7} between indexes [0:5] should be 55");
+            test(maxTrees[i].queryRange(3,5) == 9, name + ": the max of {40,15,55,2,9,7} between indexes [3:5] should be 9");
+            test(minTrees[i].queryRange(0,5) == 2, name + ": the min of {40,15,55,2,9,7} between indexes [0:5] should be 2");
+            test(minTrees[i].queryRange(4,5) == 7, name + ": the min of {40,15,55,2,9,7} between indexes [4:5] should be 7");
+            test(sumTrees[i].queryRange(0,5) == 128, name + ": the sum of {40,15,55,2,9,7} between indexes [0:5] should be 128");
+            test(sumTrees[i].queryRange(0,3) == 112, name + ": the sum of {40,15,55,2,9,7} between indexes [0:3] should be 112");
+
+            // a bad index must throw before anything is written
+            for (int[] bad : new int[][]{{1,-3}, {1,6}, {1,10}}) {
+                try {
+                    sumTrees[i].updateAll(bad, new int[]{0,100});
+                    test(false, name + ": updateAll of index " + bad[1] + " should throw");
+                } catch (IndexOutOfBoundsException e) {
+                    // expected
+                }
+            }
+            test(sumTrees[i].queryRange(0,5) == 128 && sumTrees[i].queryRange(1,1) == 15, name + ": after the rejected batches the sum should stay 128 and index 1 should stay 15");
+        }
+    }
+
+    /**
+     * Checks queryRanges and the bulk NumberAnalyzer queries, sequential and on a pool.
+     */
+    private static void testBatchQueries() {
+
+        int[] arr = {10,15,55,15,9,12};
+        int[] lefts = {0,3,4,1};
+        int[] rights = {5,5,4,2};
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        SummationSegmentTreeByTree sstbt = new SummationSegmentTreeByTree(arr);
+        sstbt.rangeAdd(0,5,1);
+        int[] out = new int[4];
+        sstbt.queryRanges(lefts, rights, out, pool);
+        test(Arrays.equals(out, new int[]{122,39,10,72}), "The sums of {11,16,56,16,10,13} for [0:5],[3:5],[4:4],[1:2] should be [122, 39, 10, 72] got: " + Arrays.toString(out));
+
+        MaximumSegmentTreeByArray mstba = new MaximumSegmentTreeByArray(arr);
+        mstba.rangeAssign(3,4,20);
+        mstba.queryRanges(lefts, rights, out);
+        test(Arrays.equals(out, new int[]{55,20,20,55}), "The maxima of {10,15,55,20,20,12} for [0:5],[3:5],[4:4],[1:2] should be [55, 20, 20, 55] got: " + Arrays.toString(out));
+
+        NumberAnalyzer[] analyzers = {new NumberAnalyzerByArrays(new Integer[]{10,15,55,15,9,12}), new NumberAnalyzerByTrees(new Integer[]{10,15,55,15,9,12}), new NumberAnalyzerByFusedArray(new Integer[]{10,15,55,15,9,12})};
+        for (NumberAnalyzer analyzer : analyzers) {
+            String name = analyzer.getClass().getSimpleName();
+            analyzer.getMin(lefts, rights, out, pool);
+            test(Arrays.equals(out, new int[]{9,9,9,15}), name + ": the minima for [0:5],[3:5],[4:4],[1:2] should be [9, 9, 9, 15] got: " + Arrays.toString(out));
+            analyzer.getMax(lefts, rights, out);
+            test(Arrays.equals(out, new int[]{55,15,9,55}), name + ": the maxima for [0:5],[3:5],[4:4],[1:2] should be [55, 15, 9, 55] got: " + Arrays.toString(out));
+            analyzer.getSum(lefts, rights, out, pool);
+            test(Arrays.equals(out, new int[]{116,36,9,70}), name + ": the sums for [0:5],[3:5],[4:4],[1:2] should be [116, 36, 9, 70] got: " + Arrays.toString(out));
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Checks the ConcurrentSegmentTree class, with readers running while a writer updates the tree.
+     */
+    private static void testConcurrentSegmentTree() {
+
+        ConcurrentSegmentTree cst = new ConcurrentSegmentTree(new SummationIterativeSegmentTreeByArray(new int[]{10,15,55,15,9,12}));
+
+        test(cst.queryRange(0,5) == 116, "The sum of {10,15,55,15,9,12} between indexes [0:5] should be 116");
+
+        // the writer moves 1 from index 0 to index 5 and back, so the total stays 116 at every moment
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                cst.updateAll(new int[]{0,5}, new int[]{9,13});
+                cst.updateAll(new int[]{0,5}, new int[]{10,12});
+            }
+        });
+        writer.start();
+        boolean consistent = true;
+        while (writer.isAlive()) {
+            consistent = consistent && (cst.queryRange(0,5) == 116);
+        }
+        test(consistent, "Concurrent readers of ConcurrentSegmentTree should always see a total of 116");
+
+        cst.update(2,5);
+
+        test(cst.queryRange(1,3) == 35, "After update index 2 from {10,15,55,15,9,12} to 5, the sum between indexes [1:3] should be 35");
+
+        test(cst.size() == 6, "Size of {10,15,55,15,9,12} should be 6");
+    }
+
+    /**
+     * Checks the persistent segment trees: older versions keep their values after updates.
+     */
+    private static void testPersistentSegmentTreeByTree() {
+
+        SummationPersistentSegmentTreeByTree spstbt = new SummationPersistentSegmentTreeByTree(new int[]{60,10,5,15,6});
+        MaximumPersistentSegmentTreeByTree mpstbt = new MaximumPersistentSegmentTreeByTree(new int[]{60,10,5,15,6});
+        MinimumPersistentSegmentTreeByTree minpstbt = new MinimumPersistentSegmentTreeByTree(new int[]{60,10,5,15,6});
+
+        int v1 = spstbt.updateVersion(4,10);
+        spstbt.rangeAdd(0,1,1);
+        int v2 = spstbt.latestVersion();
+
+        test((v1 == 1) && (v2 == 2), "Every update should add one version, got versions " + v1 + " and " + v2);
+        test(spstbt.queryRange(0,0,4) == 96, "The sum of version 0 {60,10,5,15,6} between indexes [0:4] should be 96");
+        test(spstbt.queryRange(v1,0,4) == 100, "The sum of version 1 {60,10,5,15,10} between indexes [0:4] should be 100");
+        test(spstbt.queryRange(0,4) == 102, "The sum of the latest version {61,11,5,15,10} between indexes [0:4] should be 102");
+
+        test(spstbt.toString().equals(" [ 5/61/102 5/61/77 11/61/72 61/61/61 11/11/11 5/5/5 10/15/25 15/15/15 10/10/10 ] "),"The toString of {61,11,5,15,10} should be ' [ 5/61/102 5/61/77 11/61/72 61/61/61 11/11/11 5/5/5 10/15/25 15/15/15 10/10/10 ] ' got: '" + spstbt.toString()+ " '");
+
+        mpstbt.update(1,80);
+        minpstbt.updateAll(new int[]{2,3}, new int[]{70,1});
+
+        test(mpstbt.queryRange(0,0,4) == 60 && mpstbt.queryRange(0,4) == 80, "The max of {60,10,5,15,6} should stay 60 in version 0 and be 80 after update index 1 to 80");
+        test(minpstbt.queryRange(0,2,4) == 5 && minpstbt.queryRange(2,4) == 1, "The min of {60,10,5,15,6} between indexes [2:4] should stay 5 in version 0 and be 1 after updateAll");
+    }
+
+    /**
+     * Checks the SummationFenwickTree class and the Fenwick mode of NumberAnalyzerByArrays.
+     */
+    private static void testSummationFenwickTree() {
+
+        SummationFenwickTree sft = new SummationFenwickTree(new int[]{10,15,55,15,9,12});
+
+        test(sft.toString().equals(" [ 10 25 55 95 9 21 ] "),"The toString of {10,15,55,15,9,12} should be ' [ 10 25 55 95 9 21 ] ' got: '" + sft.toString()+ " '");
+
+        test(sft.queryRange(4,5) == 21, "The sum of {10,15,55,15,9,12} between indexes [4:5] should be 21");
+
+        sft.update(5,80);
+
+        test(sft.toString().equals(" [ 10 25 55 95 9 89 ] "),"The toString of {10,15,55,15,9,80} should be ' [ 10 25 55 95 9 89 ] ' got: '" + sft.toString()+ " '");
+
+        test(sft.queryRange(2,5) == 159, "After update index 5 from {10,15,55,15,9,12} to 80, the sum between indexes [2:5] should be 159");
+
+        test(sft.size() == 6, "Size of {10,15,55,15,9,12} should be 6");
+
+        NumberAnalyzerByArrays naba = new NumberAnalyzerByArrays(new Integer[]{10,30,50}, true);
+
+        test(naba.getSum(1,2) == 80, "The sum of {10,30,50} between indexes [1:2] should be 80");
+
+        naba.update(2,5);
+
+        test(naba.getSum(0,2) == 45, "The sum of {10,30,5} between indexes [0:2] should be 45");
+        test(naba.getMin(0,2) == 5, "The min of {10,30,5} between indexes [0:2] should be 5");
+    }
+
+    /**
+     * Checks the MaximumSparseTable class.
+     */
+    private static void testMaximumSparseTable() {
+
+        MaximumSparseTable mst = new MaximumSparseTable(new int[]{10,15,55,15,9});
+
+        test(mst.toString().equals(" [ 10 15 55 15 9 | 15 55 55 15 | 55 55 ] "),"The toString of {10,15,55,15,9} should be ' [ 10 15 55 15 9 | 15 55 55 15 | 55 55 ] ' got: '" + mst.toString()+ " '");
+
+        test(mst.queryRange(0,4) == 55, "The max of {10,15,55,15,9} between indexes [0:4] should be 55");
+
+        test(mst.queryRange(3,4) == 15, "The max of {10,15,55,15,9} between indexes [3:4] should be 15");
+
+        boolean rejected = false;
+        try {
+            mst.update(0,80);
+        } catch (UnsupportedOperationException e) {
+            rejected = true;
+        }
+        test(rejected, "A sparse table should reject update");
+
+        test(mst.size() == 5, "Size of {10,15,55,15,9} should be 5");
+    }
+
+    /**
+     * Checks the MinimumSparseTable class.
+     */
+    private static void testMinimumSparseTable() {
+
+        MinimumSparseTable minst = new MinimumSparseTable(new int[]{10,15,55,15,9});
+
+        test(minst.toString().equals(" [ 10 15 55 15 9 | 10 15 15 9 | 10 9 ] "),"The toString of {10,15,55,15,9} should be ' [ 10 15 55 15 9 | 10 15 15 9 | 10 9 ] ' got: '" + minst.toString()+ " '");
+
+        test(minst.queryRange(1,3) == 15, "The min of {10,15,55,15,9} between indexes [1:3] should be 15");
+
+        test(minst.queryRange(2,2) == 55, "The min of {10,15,55,15,9} between indexes [2:2] should be 55");
+
+        test(minst.queryRange(0,4) == 9, "The min of {10,15,55,15,9} between indexes [0:4] should be 9");
+    }
+
+    /**
+     * Checks the Maximum, Minimum and Summation WideSegmentTreeByArray classes.
+     */
+    private static void testWideSegmentTreeByArray() {
+
+        MaximumWideSegmentTreeByArray mwstba = new MaximumWideSegmentTreeByArray(new int[]{10,15,55,15,9,12});
+
+        test(mwstba.toString().equals(" [ 10 15 55 15 9 12 | 55 ] "),"The toString of {10,15,55,15,9,12} should be ' [ 10 15 55 15 9 12 | 55 ] ' got: '" + mwstba.toString()+ " '");
+
+        test(mwstba.queryRange(3,5) == 15, "The max of {10,15,55,15,9,12} between indexes [3:5] should be 15");
+
+        // 40 elements {0,1,...,39} take three levels: 40 leaves, 3 nodes and the root
+        int[] arr = new int[40];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = i;
+        }
+        MaximumWideSegmentTreeByArray max40 = new MaximumWideSegmentTreeByArray(arr);
+        MinimumWideSegmentTreeByArray min40 = new MinimumWideSegmentTreeByArray(arr);
+        SummationWideSegmentTreeByArray sum40 = new SummationWideSegmentTreeByArray(arr);
+
+        test(sum40.toString().endsWith(" 39 | 120 376 284 | 780 ] "),"The upper levels of the sum tree of {0..39} should be ' 120 376 284 | 780 ' got: '" + sum40.toString()+ " '");
+        test(max40.queryRange(3,37) == 37, "The max of {0..39} between indexes [3:37] should be 37");
+        test(min40.queryRange(3,37) == 3, "The min of {0..39} between indexes [3:37] should be 3");
+        test(sum40.queryRange(3,37) == 700, "The sum of {0..39} between indexes [3:37] should be 700");
+
+        max40.update(20,-5);
+        min40.update(20,-5);
+        sum40.update(20,-5);
+
+        test(max40.queryRange(16,31) == 31, "After update index 20 of {0..39} to -5, the max between indexes [16:31] should be 31");
+        test(min40.queryRange(3,37) == -5, "After update index 20 of {0..39} to -5, the min between indexes [3:37] should be -5");
+        test(sum40.queryRange(3,37) == 675, "After update index 20 of {0..39} to -5, the sum between indexes [3:37] should be 675");
+
+        test(sum40.size() == 40, "Size of {0..39} should be 40");
+    }
+
+    /**
+     * Checks the Maximum, Minimum and Summation OffHeapSegmentTreeByArray classes.
+     */
+    private static void testOffHeapSegmentTreeByArray() {
+
+        int[] arr = new int[]{10,15,55,15,9,12};
+        MaximumOffHeapSegmentTreeByArray mohstba = new MaximumOffHeapSegmentTreeByArray(arr);
+
+        test(mohstba.toString().equals(" [ 55 55 15 55 12 10 15 55 15 9 12 ] "),"The toString of {10,15,55,15,9,12} should be ' [ 55 55 15 55 12 10 15 55 15 9 12 ] ' got: '" + mohstba.toString()+ " '");
+        test(mohstba.queryRange(3,5) == 15, "The max of {10,15,55,15,9,12} between indexes [3:5] should be 15");
+
+        // buffers of 4 ints, so the 12 slots are spread over 3 buffers
+        MinimumOffHeapSegmentTreeByArray min = new MinimumOffHeapSegmentTreeByArray(arr.length, i -> arr[(int)i], 2);
+        SummationOffHeapSegmentTreeByArray sum = new SummationOffHeapSegmentTreeByArray(arr.length, i -> arr[(int)i], 2);
+
+        test(min.queryRange(0,5) == 9, "The min of {10,15,55,15,9,12} between indexes [0:5] should be 9");
+        test(sum.queryRange(1L,4L) == 94, "The sum of {10,15,55,15,9,12} between indexes [1:4] should be 94");
+
+        min.update(2L,-1);
+        sum.update(2,-1);
+
+        test(min.queryRange(0,1) == 10, "After update index 2 to -1, the min between indexes [0:1] should be 10");
+        test(min.queryRange(1,5) == -1, "After update index 2 to -1, the min between indexes [1:5] should be -1");
+        test(sum.queryRange(1,4) == 38, "After update index 2 to -1, the sum between indexes [1:4] should be 38");
+
+        test(sum.size() == 6 && sum.longSize() == 6L, "Size of {10,15,55,15,9,12} should be 6");
+
+        for (int chunkShift : new int[]{0, 29, -1}) {
+            try {
+                new SummationOffHeapSegmentTreeByArray(arr.length, i -> arr[(int)i], chunkShift);
+                test(false, "A chunkShift of " + chunkShift + " should throw");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Checks saving array segment trees with SegmentTreeFile and opening them as mapped trees.
+     */
+    private static void testSegmentTreeFile() {
+        Path path = null;
+        Path copy = null;
+        try {
+            path = Files.createTempFile("segment-tree", ".bin");
+
+            MaximumSegmentTreeByArray mstba = new MaximumSegmentTreeByArray(new int[]{10,15,55,15,9,12});
+            mstba.rangeAdd(3,5,100); // still pending in the lazy arrays when saved
+            mstba.save(path);
+
+            OffHeapSegmentTreeByArray opened = SegmentTreeFile.open(path);
+            test(opened instanceof MaximumOffHeapSegmentTreeByArray, "A saved max tree should open as a MaximumOffHeapSegmentTreeByArray");
+            test(opened.toString().equals(" [ 115 115 15 115 112 10 15 55 115 109 112 ] "),"The opened tree of {10,15,55,115,109,112} should be ' [ 115 115 15 115 112 10 15 55 115 109 112 ] ' got: '" + opened.toString()+ " '");
+            test(opened.queryRange(0,2) == 55, "The max of the opened tree between indexes [0:2] should be 55");
+
+            opened.update(1,500);
+            opened.force();
+            OffHeapSegmentTreeByArray reopened = SegmentTreeFile.open(path);
+            test(reopened.queryRange(0,2) == 500, "An update of the opened tree should be written through to the file");
+
+            SummationSegmentTreeByArray sstba = new SummationSegmentTreeByArray(new int[]{1,2,3});
+            sstba.save(path);
+            test(SegmentTreeFile.open(path).queryRange(0,2) == 6, "Saving over a file should replace it, the sum of {1,2,3} should be 6");
+
+            // an off-heap tree streams its buffers to the file, in memory or mapped from another file
+            SummationOffHeapSegmentTreeByArray ohst = new SummationOffHeapSegmentTreeByArray(new int[]{10,15,55,15,9,12});
+            ohst.update(2,5);
+            ohst.save(path);
+            OffHeapSegmentTreeByArray roundTrip = SegmentTreeFile.open(path);
+            test(roundTrip instanceof SummationOffHeapSegmentTreeByArray, "A saved off-heap sum tree should open as a SummationOffHeapSegmentTreeByArray");
+            test(roundTrip.toString().equals(ohst.toString()), "The reopened off-heap tree should be '" + ohst.toString() + "' got: '" + roundTrip.toString() + "'");
+            copy = Files.createTempFile("segment-tree", ".bin");
+            roundTrip.save(copy);
+            test(SegmentTreeFile.open(copy).queryRange(0,5) == 66, "Saving an opened tree to another file should keep the sum 66");
+
+            java.nio.ByteBuffer bigEndian = java.nio.ByteBuffer.allocate(6 * Integer.BYTES);
+            bigEndian.asIntBuffer().put(new int[]{0,55,55,10,15,55});
+            new MaximumOffHeapSegmentTreeByArray(new java.nio.ByteBuffer[]{bigEndian}, 3, 27).save(copy);
+            test(SegmentTreeFile.open(copy).toString().equals(" [ 55 55 10 15 55 ] "), "A big-endian tree should be saved little-endian and reopen as ' [ 55 55 10 15 55 ] '");
+
+            Files.write(path, new byte[64]);
+            boolean rejected = false;
+            try {
+                SegmentTreeFile.open(path);
+            } catch (IOException e) {
+                rejected = true;
+            }
+            test(rejected, "A file without the magic number should not be opened");
+        } catch (IOException e) {
+            test(false, "SegmentTreeFile failed with " + e);
+        } finally {
+            for (Path file : new Path[]{path, copy}) {
+                if (file != null) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        // the mapping can keep the file busy on some platforms, it is a temp file anyway
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the UpdateLog and LoggedSegmentTree classes: logging, replay on a snapshot and a torn last frame.
+     */
+    private static void testUpdateLog() {
+        Path path = null;
+        Path snapshot = null;
+        try {
+            path = Files.createTempFile("segment-tree", ".log");
+            int[] arr = new int[]{10,15,55,15,9,12};
+
+            UpdateLog log = new UpdateLog(path);
+            LoggedSegmentTree lst = new LoggedSegmentTree(new SummationSegmentTreeByArray(arr), log);
+            lst.update(2,5);
+            lst.rangeAdd(0,3,1);
+            lst.commit();
+            lst.updateAll(new int[]{4,5}, new int[]{0,0});
+            lst.rangeAssign(1,1,7);
+            log.close();
+
+            test(lst.queryRange(0,5) == 40, "The sum of the logged tree {11,7,6,16,0,0} should be 40");
+
+            SummationSegmentTreeByArray recovered = new SummationSegmentTreeByArray(arr);
+            long records = UpdateLog.replay(path, recovered);
+            test(records == 4, "The log should replay 4 records, got " + records);
+            test(recovered.toString().equals(lst.toString()), "The recovered tree should be '" + lst.toString() + "' got: '" + recovered.toString() + "'");
+
+            // a crash in the middle of a commit leaves a torn frame behind
+            Files.write(path, new byte[]{0,0,0,100,1,2,3}, java.nio.file.StandardOpenOption.APPEND);
+            recovered = new SummationSegmentTreeByArray(arr);
+            test(UpdateLog.replay(path, recovered) == 4, "A torn frame at the end of the log should be skipped");
+            test(recovered.queryRange(0,5) == 40, "After skipping the torn frame the sum should still be 40");
+
+            long goodLength = Files.size(path) - 7;
+            log = new UpdateLog(path);
+            test(Files.size(path) == goodLength, "Opening a log should cut off the torn frame");
+            log.logUpdate(0,100);
+            log.close();
+            recovered = new SummationSegmentTreeByArray(arr);
+            test(UpdateLog.replay(path, recovered) == 5, "A frame written after the cut should be replayed");
+            test(recovered.queryRange(0,0) == 100, "After the replay index 0 should be 100");
+
+            log = new UpdateLog(path);
+            long nextLsn = log.nextLsn;
+            log.truncate();
+            log.close();
+            recovered = new SummationSegmentTreeByArray(arr);
+            test(UpdateLog.replay(path, recovered) == 0, "A truncated log should replay no records");
+            log = new UpdateLog(path);
+            test(log.nextLsn == nextLsn, "A truncation should not reuse LSNs, the next one should be " + nextLsn + ", got " + log.nextLsn);
+            log.close();
+
+            // a rejected change must not reach the log, and a record the tree rejects fails the replay
+            int[] small = new int[]{1,2,3};
+            log = new UpdateLog(path);
+            lst = new LoggedSegmentTree(new MaximumIterativeSegmentTreeByArray(small), log);
+            try {
+                lst.update(5,1);
+                test(false, "Updating index 5 of a logged tree of size 3 should throw");
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+            lst.update(0,99);
+            lst.commit();
+            log.logUpdate(7,1); // written directly, a log of a bigger tree
+            log.close();
+            MaximumIterativeSegmentTreeByArray replayed = new MaximumIterativeSegmentTreeByArray(small);
+            try {
+                UpdateLog.replay(path, replayed);
+                test(false, "Replaying a record of index 7 on a tree of size 3 should fail");
+            } catch (IOException e) {
+                test(replayed.queryRange(0,0) == 99, "The records before the rejected one should be replayed, index 0 should be 99");
+            }
+
+            // a checkpoint tags the snapshot with the LSN, so a crash before the truncation applies nothing twice
+            snapshot = Files.createTempFile("segment-tree", ".bin");
+            log = new UpdateLog(path);
+            log.truncate();
+            lst = new LoggedSegmentTree(new SummationSegmentTreeByArray(arr), log);
+            lst.rangeAdd(0,5,1);
+            final Path snapshotFile = snapshot;
+            final LoggedSegmentTree checkpointed = lst;
+            try {
+                log.checkpoint(lsn -> {
+                    checkpointed.save(snapshotFile, lsn);
+                    throw new IOException("crash before the truncation");
+                });
+            } catch (IOException e) {
+                // the snapshot is saved, the log still holds the rangeAdd
+            }
+            log.close();
+            OffHeapSegmentTreeByArray restored = UpdateLog.recover(snapshot, path);
+            test(restored.queryRange(0,5) == 122, "The rangeAdd in the snapshot should not be replayed again, the sum should be 122, got " + restored.queryRange(0,5));
+
+            log = new UpdateLog(path);
+            lst = new LoggedSegmentTree(restored, log);
+            lst.update(0,0);
+            lst.checkpoint(snapshot);
+            lst.rangeAdd(1,2,10);
+            log.close();
+            restored = UpdateLog.recover(snapshot, path);
+            test(restored.queryRange(0,5) == 131, "After a checkpoint and one more rangeAdd the recovered sum should be 131, got " + restored.queryRange(0,5));
+            test(SegmentTreeFile.open(snapshot).queryRange(0,5) == 111, "Recovering should not change the snapshot, its sum should stay 111");
+        } catch (IOException e) {
+            test(false, "UpdateLog failed with " + e);
+        } finally {
+            for (Path file : new Path[]{path, snapshot}) {
+                if (file != null) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        // it is a temp file anyway
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the Maximum, Minimum and Summation DynamicSegmentTreeByTree classes.
+     */
+    private static void testDynamicSegmentTreeByTree() {
+
+        MaximumDynamicSegmentTreeByTree mdstbt = new MaximumDynamicSegmentTreeByTree(new int[]{10,15,55,15,9,12}, 0);
+
+        test(mdstbt.toString().equals(" [ 55 55 15 10 15 55 15 15 15 9 12 ] "),"The toString of {10,15,55,15,9,12} should be ' [ 55 55 15 10 15 55 15 15 15 9 12 ] ' got: '" + mdstbt.toString()+ " '");
+        test(mdstbt.queryRange(3,5) == 15, "The max of {10,15,55,15,9,12} between indexes [3:5] should be 15");
+
+        // 2^50 indices with a default of 1, only the updated paths are created
+        long high = (1L << 50) - 1;
+        MinimumDynamicSegmentTreeByTree min = new MinimumDynamicSegmentTreeByTree(0, high, 1);
+        SummationDynamicSegmentTreeByTree sum = new SummationDynamicSegmentTreeByTree(0, high, 1);
+
+        test(sum.queryRange(0L, high) == (1L << 50), "The sum of 2^50 ones should be 2^50");
+        test(sum.nodeCount() == 0, "A tree without updates should have no nodes");
+
+        long timestamp = 1_700_000_000_000L;
+        min.update(timestamp, -7);
+        sum.update(timestamp, -7);
+        sum.update(timestamp + 1, 0);
+
+        test(min.queryRange(0L, timestamp - 1) == 1, "The min before the updated index should be the default 1");
+        test(min.queryRange(timestamp, high) == -7, "The min from the updated index should be -7");
+        test(sum.queryRange(timestamp - 10, timestamp + 10) == 21 - 1 - 8, "The sum of [t-10:t+10] should be 12");
+        test(sum.nodeCount() <= 2 * 51, "Two updates should create at most two root paths, got " + sum.nodeCount());
+
+        // queries are clamped to [low, high], and rejected when they lie entirely outside
+        SummationDynamicSegmentTreeByTree small = new SummationDynamicSegmentTreeByTree(0, 9, 1);
+        test(small.queryRange(-5L, 2L) == 3, "The sum of [-5:2] in [0:9] with default 1 should be clamped to [0:2] and be 3");
+        test(small.queryRange(8L, 25L) == 2, "The sum of [8:25] in [0:9] with default 1 should be clamped to [8:9] and be 2");
+        try {
+            small.queryRange(20L, 25L);
+            test(false, "A query of [20:25] in [0:9] should throw");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        // sums that do not fit a long throw instead of wrapping
+        try {
+            new SummationDynamicSegmentTreeByTree(0, Long.MAX_VALUE, 1);
+            test(false, "2^63 ones should not fit the sum of a tree");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        SummationDynamicSegmentTreeByTree full = new SummationDynamicSegmentTreeByTree(Long.MIN_VALUE, Long.MAX_VALUE, 0);
+        full.update(Long.MIN_VALUE, 5);
+        full.update(Long.MAX_VALUE, 7);
+        test(full.queryRange(Long.MIN_VALUE, Long.MAX_VALUE) == 12, "The sum of the whole long range with default 0 should be 12, got " + full.queryRange(Long.MIN_VALUE, Long.MAX_VALUE));
+        long last = (1L << 33) - 2; // 2^33-1 elements of 2^30, 2^30 short of Long.MAX_VALUE
+        SummationDynamicSegmentTreeByTree edge = new SummationDynamicSegmentTreeByTree(0, last, 1 << 30);
+        edge.update(0L, Integer.MAX_VALUE);
+        test(edge.queryRange(0L, last) == Long.MAX_VALUE, "After raising one element to Integer.MAX_VALUE the sum should be Long.MAX_VALUE");
+        try {
+            edge.update(1L, Integer.MAX_VALUE);
+            test(false, "Raising a second element to Integer.MAX_VALUE should overflow");
+        } catch (ArithmeticException e) {
+            test(edge.queryRange(1L, 1L) == (1 << 30) && edge.queryRange(0L, last) == Long.MAX_VALUE, "An update that overflows should be undone");
+        }
+    }
+
+    /**
+     * Checks append and appendAll of the IterativeSegmentTreeByArray classes.
+     */
+    private static void testAppend() {
+
+        MaximumIterativeSegmentTreeByArray mistba = new MaximumIterativeSegmentTreeByArray(new int[]{10,15,55});
+        mistba.append(15);
+
+        test(mistba.size() == 4 && mistba.capacity() == 6, "After appending to {10,15,55} the size should be 4 and the capacity 6");
+        test(mistba.toString().equals(" [ 55 55 15 55 -2147483648 10 15 55 15 -2147483648 -2147483648 ] "),"The toString of {10,15,55,15} with capacity 6 should be ' [ 55 55 15 55 -2147483648 10 15 55 15 -2147483648 -2147483648 ] ' got: '" + mistba.toString()+ " '");
+        test(mistba.queryRange(3,3) == 15, "The max of {10,15,55,15} between indexes [3:3] should be 15");
+
+        SummationIterativeSegmentTreeByArray sum = new SummationIterativeSegmentTreeByArray(new int[0]);
+        for (int i = 1; i <= 100; i++) {
+            sum.append(i);
+        }
+        test(sum.size() == 100 && sum.capacity() == 128, "After 100 appends to an empty tree the size should be 100 and the capacity 128");
+        test(sum.queryRange(0,99) == 5050, "The sum of {1..100} should be 5050");
+
+        sum.appendAll(new int[]{1000,2000});
+        test(sum.queryRange(99,101) == 3100, "After appending {1000,2000} the sum between indexes [99:101] should be 3100");
+        sum.appendAll(new int[100]);
+        test(sum.size() == 202 && sum.capacity() == 256, "After appending 100 more elements the size should be 202 and the capacity 256");
+        test(sum.queryRange(0,201) == 8050, "The sum of all the 202 elements should be 8050");
+
+        MinimumIterativeSegmentTreeByArray min = new MinimumIterativeSegmentTreeByArray(new int[]{5});
+        min.appendAll(new int[]{7,3,9});
+        min.update(2,8);
+        test(min.queryRange(1,3) == 7, "After update index 2 of {5,7,3,9} to 8, the min between indexes [1:3] should be 7");
+    }
+
+    /**
+     * Checks the Maximum, Minimum and Summation SlidingWindow classes.
+     */
+    private static void testSlidingWindow() {
+
+        MaximumSlidingWindow max = new MaximumSlidingWindow(4);
+        MinimumSlidingWindow min = new MinimumSlidingWindow(4);
+        SummationSlidingWindow sum = new SummationSlidingWindow(4);
+        int[] samples = new int[]{10,15,55,15,9,12};
+        for (int i = 0; i < 3; i++) {
+            max.push(samples[i]);
+            min.push(samples[i]);
+            sum.push(samples[i]);
+        }
+
+        test(sum.size() == 3 && sum.capacity() == 4, "After 3 pushes to a window of 4 the size should be 3");
+        test(max.queryAll() == 55, "The max of the window {10,15,55} should be 55");
+        test(min.queryLast(2) == 15, "The min of the last 2 values of {10,15,55} should be 15");
+
+        for (int i = 3; i < samples.length; i++) {
+            max.push(samples[i]);
+            min.push(samples[i]);
+            sum.push(samples[i]);
+        }
+
+        // the window is now {55,15,9,12}, stored as [9,12,55,15] in the ring
+        test(sum.size() == 4, "A full window of 4 should keep 4 values");
+        test(sum.queryAll() == 91, "The sum of the window {55,15,9,12} should be 91");
+        test(max.queryLast(3) == 15, "The max of the last 3 values {15,9,12} should be 15");
+        test(max.queryLast(4) == 55, "The max of the last 4 values {55,15,9,12} should be 55");
+        test(min.queryLast(1) == 12, "The min of the last value {12} should be 12");
+        test(min.queryLast(3) == 9, "The min of the last 3 values {15,9,12} should be 9");
+
+        boolean rejected = false;
+        try {
+            sum.queryLast(5);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        test(rejected, "Querying more values than the window holds should be rejected");
+    }
+
+    /**
+     * Checks the LatencyHistogram, InstrumentedSegmentTree, InstrumentedNumberAnalyzer and SegmentTreeMetrics classes.
+     * The node counts are only checked when running with -Dsegmenttree.instrumentation=true.
+     */
+    private static void testInstrumentation() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(1000000);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        test(snapshot.getCount() == 101 && snapshot.getMax() == 1000000, "The histogram should have 101 values with max 1000000");
+        test(snapshot.getValueAtPercentile(50) == 51, "The median of {1..100,1000000} should be 51, got " + snapshot.getValueAtPercentile(50));
+        long p99 = snapshot.getValueAtPercentile(99);
+        test(p99 >= 100 && p99 <= 103, "The p99 of {1..100,1000000} should be 100 within 3%, got " + p99);
+        test(snapshot.getValueAtPercentile(100) == 1000000, "The p100 should be the max");
+
+        InstrumentedSegmentTree ist = new InstrumentedSegmentTree(new MaximumSegmentTreeByArray(new int[]{10,15,55,15,9,12}));
+        ist.build(new int[]{10,15,55,15,9,12});
+        test(ist.queryRange(0,4) == 55, "The max of {10,15,55,15,9,12} between indexes [0:4] should be 55");
+        ist.update(2,1);
+        test(ist.queryRange(0,4) == 15, "After update index 2 to 1, the max between indexes [0:4] should be 15");
+
+        SegmentTreeMetrics metrics = ist.getMetrics();
+        test(metrics.getQueryCount() == 2 && metrics.getUpdateCount() == 1 && metrics.getBuildCount() == 1, "The metrics should count 2 queries, 1 update and 1 build");
+        if (Instrumentation.ENABLED) {
+            test(metrics.snapshot().get("queryNodes").getMax() > 0, "With instrumentation on, the queries should visit nodes");
+            test(metrics.getMeanSplitsPerQuery() >= 1, "The query [0:4] should split at the root");
+        }
+
+        metrics.setEnabled(false);
+        ist.queryRange(0,1);
+        test(metrics.getQueryCount() == 2, "A paused metrics should not record queries");
+        metrics.setEnabled(true);
+
+        InstrumentedNumberAnalyzer ina = InstrumentedNumberAnalyzer.build(() -> new NumberAnalyzerByTrees(new Integer[]{1,2,3}), new SegmentTreeMetrics());
+        test(ina.getSum(0,2) == 6 && ina.getMax(0,1) == 2, "The sum of {1,2,3} should be 6 and the max of {1,2} should be 2");
+        test(ina.getMetrics().getQueryCount() == 2 && ina.getMetrics().getBuildCount() == 1, "The analyzer metrics should count 2 queries and 1 build");
+        ina.update(0,4);
+        test(ina.countEven(0,2) == 2 && ina.getMaxByComparator(0,2) == 4, "After updating {1,2,3} to {4,2,3} the wrapped analyzer should count 2 evens with 4 the biggest");
+        test(ina.getMetrics().getQueryCount() == 2, "The parity queries should not be recorded");
+
+        try {
+            javax.management.ObjectName name = metrics.registerMBean("tester");
+            Object count = java.lang.management.ManagementFactory.getPlatformMBeanServer().getAttribute(name, "QueryCount");
+            test(Long.valueOf(2).equals(count), "The QueryCount attribute of the MBean should be 2, got " + count);
+            java.lang.management.ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (javax.management.JMException e) {
+            test(false, "Registering the metrics MBean failed with " + e);
+        }
+    }
+
+    /**
+     * Checks the CachingNumberAnalyzer class: hits, misses, eviction and invalidation by update.
+     */
+    private static void testCachingNumberAnalyzer() {
+
+        CachingNumberAnalyzer cna = new CachingNumberAnalyzer(new NumberAnalyzerByArrays(new Integer[]{10,15,55,15,9,12}), 3);
+
+        test(cna.getMax(0,2) == 55, "The max of {10,15,55,15,9,12} between indexes [0:2] should be 55");
+        test(cna.getMax(0,2) == 55, "The cached max between indexes [0:2] should be 55");
+        test(cna.getSum(3,5) == 36, "The sum of {10,15,55,15,9,12} between indexes [3:5] should be 36");
+        test(cna.getHitCount() == 1 && cna.getMissCount() == 2, "After repeating one query there should be 1 hit and 2 misses");
+
+        cna.update(4,20);
+        test(cna.cacheSize() == 1 && cna.getInvalidationCount() == 1, "Updating index 4 should only drop the cached range [3:5]");
+        test(cna.getSum(3,5) == 47, "After update index 4 to 20, the sum between indexes [3:5] should be 47");
+        test(cna.getMax(0,2) == 55, "The max between indexes [0:2] should still come from the cache");
+        test(cna.getHitCount() == 2, "The range [0:2] should still be a hit after updating index 4");
+
+        cna.getMin(0,5);
+        cna.getMin(1,1);
+        test(cna.cacheSize() == 3, "The cache should keep at most 3 results");
+        cna.update(0,1);
+        test(cna.getMax(0,2) == 55 && cna.getMin(0,5) == 1, "After update index 0 to 1, the max [0:2] should be 55 and the min [0:5] should be 1");
+
+        // negative or reversed endpoints must not reach the cache key
+        for (int[] bad : new int[][]{{-2,3}, {3,1}, {0,6}}) {
+            try {
+                cna.getSum(bad[0], bad[1]);
+                test(false, "The cached sum of [" + bad[0] + ":" + bad[1] + "] should throw");
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+
+        // the uncached queries are forwarded, so the wrapped analyzer answers them with its parity tree
+        NumberAnalyzerByArrays wrapped = new NumberAnalyzerByArrays(new Integer[]{10,15,55,15,9,12});
+        CachingNumberAnalyzer forwarding = new CachingNumberAnalyzer(wrapped, 4);
+        test(forwarding.getMaxByComparator(0,5) == 12 && forwarding.countOdd(0,5) == 4, "The cached analyzer should forward the comparator max 12 and the odd count 4");
+        test(wrapped.parityTree != null, "The forwarded queries should be answered by the wrapped analyzer's parity tree");
+        test(forwarding.getStats(1,3).getSum() == 85, "The cached analyzer should forward getStats, the sum of [1:3] should be 85");
+    }
+
+    /**
+     * Checks the IntNumberAnalyzerByArrays and IntNumberAnalyzerByTrees classes.
+     */
+    private static void testIntNumberAnalyzer() {
+
+        int[] numbers = new int[]{10,15,55,15,9,12};
+        IntNumberAnalyzer[] analyzers = new IntNumberAnalyzer[]{new IntNumberAnalyzerByArrays(numbers), new IntNumberAnalyzerByTrees(numbers)};
+        for (IntNumberAnalyzer ina : analyzers) {
+            String name = ina.getClass().getName();
+            test(ina.getMax(0,5) == 55 && ina.getMin(3,5) == 9 && ina.getSum(1,3) == 85, name + ": max [0:5] should be 55, min [3:5] 9 and sum [1:3] 85");
+
+            java.util.PrimitiveIterator.OfInt iterator = ina.iterator();
+            int total = 0;
+            while (iterator.hasNext()) {
+                total += iterator.nextInt();
+            }
+            test(total == 116, name + ": the iterated sum of {10,15,55,15,9,12} should be 116");
+            test(ina.stream(2,4).max().getAsInt() == 55 && ina.stream().count() == 6, name + ": the stream of [2:4] should have max 55 and the whole stream 6 numbers");
+
+            ina.update(2,0);
+            int[] out = new int[2];
+            ina.getMax(new int[]{0,2}, new int[]{2,5}, out);
+            test(out[0] == 15 && out[1] == 15, name + ": after update index 2 to 0, the max of [0:2] and [2:5] should be 15 and 15");
+        }
+        test(numbers[2] == 55, "The copying analyzers should not change the caller's array");
+
+        int[] shared = new int[]{1,2,3};
+        IntNumberAnalyzerByArrays noCopy = new IntNumberAnalyzerByArrays(shared, false);
+        noCopy.update(0,7);
+        test(shared[0] == 7 && noCopy.getSum(0,2) == 12, "A no-copy analyzer should write updates to the caller's array, and the sum should be 12");
+    }
+
+    /**
+     * Checks the ParitySegmentTreeByArray class, and the comparator and parity queries of the NumberAnalyzer classes.
+     */
+    private static void testParitySegmentTree() {
+
+        ParitySegmentTreeByArray pst = new ParitySegmentTreeByArray(new int[]{10,30,51});
+        test(pst.toString().equals(" [ 30/51/2 30/51/1 10/10/1 30/30/1 51/51/0 ] "), "The parity tree of {10,30,51} should be [ 30/51/2 30/51/1 10/10/1 30/30/1 51/51/0 ]");
+
+        Integer[] numbers = new Integer[]{10,15,55,15,9,12};
+        NumberAnalyzer[] analyzers = new NumberAnalyzer[]{new NumberAnalyzerByArrays(numbers.clone()), new NumberAnalyzerByTrees(numbers.clone())};
+        for (NumberAnalyzer na : analyzers) {
+            String name = na.getClass().getName();
+            test(na.getMaxByComparator(0,5) == 12 && na.getMinByComparator(0,5) == 9, name + ": by compare, the max of [0:5] should be 12 and the min 9");
+            test(na.getMaxByComparator(1,3) == 55 && na.getMinByComparator(1,3) == 15, name + ": by compare, the max of the odd range [1:3] should be 55 and the min 15");
+            test(na.countEven(0,5) == 2 && na.countOdd(0,5) == 4, name + ": [0:5] should have 2 even and 4 odd numbers");
+
+            na.update(3,-4);
+            na.update(4,-7);
+            test(na.getMaxByComparator(1,3) == -4 && na.getMinByComparator(0,5) == -7, name + ": after updates, by compare the max of [1:3] should be -4 and the min of [0:5] -7");
+            test(na.countEven(1,4) == 1 && na.countOdd(1,4) == 3, name + ": after updates, [1:4] should have 1 even and 3 odd numbers");
+        }
+    }
+
     /**
      * Checks the NumberAnalyzerByTrees class.
      */
@@ -235,4 +1217,59 @@ public class Tester {
         test(tst_naba.equals(" 10 30 5"),"The iterator result should be ' 10 30 5' got: '" + tst_naba+ " '");
     }
 
+    /**
+     * Checks the NumberAnalyzerByFusedArray class.
+     */
+    private static void testNumberAnalyzerByFusedArray() {
+
+        Integer[] arr = {10,30,50};
+        NumberAnalyzerByFusedArray nabfa = new NumberAnalyzerByFusedArray(arr);
+
+        test(nabfa.statsTree.toString().equals(" [ 10/50/90 30/50/80 10/10/10 30/30/30 50/50/50 ] "),"The toString of {10,30,50} should be ' [ 10/50/90 30/50/80 10/10/10 30/30/30 50/50/50 ] ' got: '" + nabfa.statsTree.toString()+ " '");
+        test(nabfa.getMax(0,1) == 30, "The max of {10,30,50} between indexes [0:1] should be 30");
+        test(nabfa.getMin(0,1) == 10, "The min of {10,30,50} between indexes [0:1] should be 10");
+        test(nabfa.getSum(0,1) == 40, "The sum of {10,30,50} between indexes [0:1] should be 40");
+
+        nabfa.update(2,5);
+
+        SegmentTreeNode stats = nabfa.getStats(0,2);
+        test(stats.getMax() == 30, "The max of {10,30,5} between indexes [0:2] should be 30");
+        test(stats.getMin() == 5, "The min of {10,30,5} between indexes [0:2] should be 5");
+        test(stats.getSum() == 45, "The sum of {10,30,5} between indexes [0:2] should be 45");
+
+        String tst_nabfa = "";
+
+        for (int i : nabfa){
+            tst_nabfa = tst_nabfa +" " + i;
+        }
+        test(tst_nabfa.equals(" 10 30 5"),"The iterator result should be ' 10 30 5' got: '" + tst_nabfa+ " '");
+    }
+
+    /**
+     * Checks the NumberAnalyzerBySharedTree class.
+     */
+    private static void testNumberAnalyzerBySharedTree() {
+
+        Integer[] arr = {10,30,50};
+        NumberAnalyzerBySharedTree nabst = new NumberAnalyzerBySharedTree(arr);
+
+        test(nabst.getMax(0,1) == 30, "The max of {10,30,50} between indexes [0:1] should be 30");
+        test(nabst.getMin(1,2) == 30, "The min of {10,30,50} between indexes [1:2] should be 30");
+        test(nabst.getSum(0,1) == 40, "The sum of {10,30,50} between indexes [0:1] should be 40");
+
+        nabst.update(2,5);
+
+        SegmentTreeNode stats = nabst.getStats(0,2);
+        test(stats.getMax() == 30, "The max of {10,30,5} between indexes [0:2] should be 30");
+        test(stats.getMin() == 5, "The min of {10,30,5} between indexes [0:2] should be 5");
+        test(stats.getSum() == 45, "The sum of {10,30,5} between indexes [0:2] should be 45");
+
+        String tst_nabst = "";
+
+        for (int i : nabst){
+            tst_nabst = tst_nabst +" " + i;
+        }
+        test(tst_nabst.equals(" 10 30 5"),"The iterator result should be ' 10 30 5' got: '" + tst_nabst+ " '");
+    }
+
 }
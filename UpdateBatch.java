@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/**
+ * A batch of point updates sorted by index, as used by {@link SegmentTree#updateAll(int[], int[])}.
+ * When an index appears more than once only its last value is kept, same as applying the updates one by one.
+ */
+public class UpdateBatch {
+
+    private final int[] indices;
+    private final int[] values;
+    private final int length;
+
+    /**
+     * Constructs a new batch from parallel arrays of indices and values.
+     * Every index is checked before anything is written, so a bad batch leaves the tree as it was.
+     * @param indices the indices of the elements to update
+     * @param values the new values, values[i] is written to indices[i]
+     * @param size the number of elements in the updated tree
+     * @throws IndexOutOfBoundsException if an index is not in [0, size-1]
+     */
+    public UpdateBatch(int[] indices, int[] values, int size) {
+        if (indices.length != values.length) {
+            throw new IllegalArgumentException("indices and values must have the same length: " + indices.length + " != " + values.length);
+        }
+        for (int index : indices) {
+            if ((index < 0) || (index >= size)) {
+                throw new IndexOutOfBoundsException("Index " + index + " is out of [0, " + (size - 1) + "]");
+            }
+        }
+        // sort by index, and by position among equal indices, with one long per update
+        long[] keys = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            keys[i] = ((long) indices[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        this.indices = new int[keys.length];
+        this.values = new int[keys.length];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int index = (int) (keys[i] >> 32);
+            if ((count > 0) && (this.indices[count - 1] == index)) {
+                count--; // a later update of the same index wins
+            }
+            this.indices[count] = index;
+            this.values[count] = values[(int) keys[i]];
+            count++;
+        }
+        this.length = count;
+    }
+
+    /**
+     * Returns the number of distinct indices in the batch.
+     * @return the number of updates
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Returns the index of the i-th update (in increasing index order).
+     * @param i position in the batch
+     * @return the updated index
+     */
+    public int index(int i) {
+        return this.indices[i];
+    }
+
+    /**
+     * Returns the value of the i-th update (in increasing index order).
+     * @param i position in the batch
+     * @return the new value
+     */
+    public int value(int i) {
+        return this.values[i];
+    }
+
+    /**
+     * Returns the first position in [from, to) whose index is bigger than the given index.
+     * Used to split a part of the batch between the two children of a node.
+     * @param from first position (inclusive)
+     * @param to last position (exclusive)
+     * @param index the split index
+     * @return the split position
+     */
+    public int upperBound(int from, int to, int index) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (this.indices[mid] <= index) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+}
@@ -0,0 +1,444 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead log of segment tree updates.
+ * The records are collected in a memory buffer and written as one frame per commit (group commit): the frame is
+ * the payload length, the CRC32 of the payload and the payload, followed by a single fsync. A record costs a few
+ * buffer writes on the update path, and is durable once commit() returns.
+ * The payload starts with the LSN of the frame, a sequence number that keeps growing across truncations, followed
+ * by the records.
+ * Records logged by several threads between two commits share the same frame and the same fsync. The log only
+ * orders the records themselves, callers that also apply the changes (like {@link LoggedSegmentTree}) must log and
+ * apply under the log's monitor to keep the two orders the same.
+ *
+ * {@link #checkpoint(Snapshot)} saves a snapshot tagged with the LSN of the last frame it contains and only then
+ * empties the log, and {@link #replay(Path, SegmentTree, long)} skips the frames at or below the LSN of the snapshot.
+ * A crash between the two steps therefore never applies a frame twice.
+ * Replay applies the complete frames of a log in order, and stops at the first torn or corrupt frame, which is what
+ * a crash in the middle of a commit leaves behind.
+ */
+public class UpdateLog implements Closeable {
+
+    protected static final byte UPDATE = 1;
+    protected static final byte UPDATE_ALL = 2;
+    protected static final byte RANGE_ADD = 3;
+    protected static final byte RANGE_ASSIGN = 4;
+    protected static final byte BUILD = 5;
+    protected static final int FRAME_HEADER_BYTES = 8;
+    protected static final int DEFAULT_BUFFER_BYTES = 1 << 16;
+
+    protected final Path path;
+    protected FileChannel channel;
+    protected ByteBuffer buffer;
+    protected long nextLsn;
+
+    /**
+     * Saves a snapshot of the tree for {@link #checkpoint(Snapshot)}.
+     */
+    public interface Snapshot {
+        /**
+         * Saves the snapshot, for example with SegmentTreeFile.save(tree, path, lsn).
+         * @param lsn the LSN of the last frame the snapshot contains, to be stored with it
+         * @throws IOException if the snapshot cannot be saved
+         */
+        void save(long lsn) throws IOException;
+    }
+
+    /**
+     * Opens a log with the default buffer size, creating the file if needed.
+     * @param path the log file
+     * @throws IOException if the file cannot be opened
+     */
+    public UpdateLog(Path path) throws IOException {
+        this(path, DEFAULT_BUFFER_BYTES);
+    }
+
+    /**
+     * Opens a log, creating the file if needed. A torn frame at the end of an existing log is cut off,
+     * so the new frames follow the last complete one.
+     * @param path the log file
+     * @param bufferBytes the buffer size, a full buffer is committed automatically
+     * @throws IOException if the file cannot be opened
+     */
+    public UpdateLog(Path path, int bufferBytes) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocate(Math.max(bufferBytes, 64));
+        long[] lastLsn = new long[1];
+        long end = readFrames(this.channel, (lsn, records) -> lastLsn[0] = lsn);
+        this.nextLsn = lastLsn[0] + 1;
+        this.channel.truncate(end);
+        this.channel.position(end);
+    }
+
+    /**
+     * Logs a point update.
+     * @param index the index of the element
+     * @param value the new value of the element
+     * @throws IOException if a full buffer cannot be committed
+     */
+    public synchronized void logUpdate(int index, int value) throws IOException {
+        reserve(1 + 2 * Integer.BYTES);
+        this.buffer.put(UPDATE).putInt(index).putInt(value);
+    }
+
+    /**
+     * Logs a batch of point updates as one record, so it is replayed as a whole or not at all.
+     * @param indices the indices of the elements
+     * @param values the new values, values[i] is written to indices[i]
+     * @throws IOException if a full buffer cannot be committed
+     */
+    public synchronized void logUpdateAll(int[] indices, int[] values) throws IOException {
+        reserve(1 + Integer.BYTES + 2 * Integer.BYTES * indices.length);
+        this.buffer.put(UPDATE_ALL).putInt(indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            this.buffer.putInt(indices[i]).putInt(values[i]);
+        }
+    }
+
+    /**
+     * Logs a range update.
+     * @param left the left endpoint of the range (inclusive)
+     * @param right the right endpoint of the range (inclusive)
+     * @param value the added value, or the new value if assign is true
+     * @param assign whether the range is assigned instead of added to
+     * @throws IOException if a full buffer cannot be committed
+     */
+    public synchronized void logRange(int left, int right, int value, boolean assign) throws IOException {
+        reserve(1 + 3 * Integer.BYTES);
+        this.buffer.put(assign ? RANGE_ASSIGN : RANGE_ADD).putInt(left).putInt(right).putInt(value);
+    }
+
+    /**
+     * Logs a rebuild of the whole tree with its new elements.
+     * @param arr the new elements
+     * @throws IOException if a full buffer cannot be committed
+     */
+    public synchronized void logBuild(int[] arr) throws IOException {
+        reserve(1 + Integer.BYTES + Integer.BYTES * arr.length);
+        this.buffer.put(BUILD).putInt(arr.length);
+        for (int value : arr) {
+            this.buffer.putInt(value);
+        }
+    }
+
+    /**
+     * Helper function that makes room for a record of the given size, committing the buffer when it is too full.
+     * A record larger than the buffer gets a larger buffer.
+     * @param bytes the size of the record
+     * @throws IOException if the buffer cannot be committed
+     */
+    protected void reserve(int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes) {
+            return;
+        }
+        commit();
+        if (this.buffer.capacity() < bytes) {
+            this.buffer = ByteBuffer.allocate(bytes);
+        }
+    }
+
+    /**
+     * Writes the buffered records as one frame and waits until it is on the disk.
+     * Does nothing when no record was logged since the last commit.
+     * If the frame cannot be written, the records stay in the buffer and the partly written frame is cut off the
+     * file, so a later commit writes them again after the last complete frame.
+     * @throws IOException if the frame cannot be written
+     */
+    public synchronized void commit() throws IOException {
+        if (this.buffer.position() == 0) {
+            return;
+        }
+        ByteBuffer records = this.buffer.duplicate();
+        records.flip();
+        long start = this.channel.position();
+        boolean written = false;
+        try {
+            writeFrame(this.channel, this.nextLsn, records);
+            this.channel.force(false);
+            written = true;
+        } finally {
+            if (!written) {
+                discardFrom(start);
+            }
+        }
+        this.nextLsn++;
+        this.buffer.clear();
+    }
+
+    /**
+     * Helper function that writes one frame at the position of a channel.
+     * @param channel the log file
+     * @param lsn the LSN of the frame
+     * @param records the records of the frame, may be empty
+     * @throws IOException if the frame cannot be written
+     */
+    private static void writeFrame(FileChannel channel, long lsn, ByteBuffer records) throws IOException {
+        ByteBuffer lsnBytes = ByteBuffer.allocate(Long.BYTES);
+        lsnBytes.putLong(lsn).flip();
+        CRC32 crc = new CRC32();
+        crc.update(lsnBytes.duplicate());
+        crc.update(records.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        header.putInt(Long.BYTES + records.remaining()).putInt((int)crc.getValue()).flip();
+        ByteBuffer[] frame = new ByteBuffer[]{header, lsnBytes, records};
+        while (records.hasRemaining() || lsnBytes.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    /**
+     * Helper function that cuts a partly written frame off the end of the file after a failed commit.
+     * Errors are ignored, the commit already fails with the original one, and a torn frame that is left behind is
+     * cut off the next time the log is opened.
+     * @param start the file position where the frame started
+     */
+    private void discardFrom(long start) {
+        try {
+            this.channel.truncate(start);
+            this.channel.position(start);
+        } catch (IOException e) {
+            // keep the original error
+        }
+    }
+
+    /**
+     * Commits the buffer and empties the log, after a snapshot that contains all the logged updates was saved.
+     * The emptied log holds a single frame without records that keeps the last LSN, so the LSNs keep growing.
+     * It is written to a new file that is renamed over the log, so a crash leaves either the old or the new log.
+     * @throws IOException if the log cannot be truncated
+     */
+    public synchronized void truncate() throws IOException {
+        commit();
+        Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        FileChannel emptied = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            writeFrame(emptied, this.nextLsn - 1, ByteBuffer.allocate(0));
+            emptied.force(true);
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            emptied.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        this.channel.close();
+        this.channel = emptied;
+    }
+
+    /**
+     * Saves a snapshot that contains every logged update, then empties the log.
+     * Runs under the log's monitor, so no record is logged between the snapshot and the truncation.
+     * If the process stops after the snapshot was saved but before the log was emptied, replaying the log from the
+     * LSN of the snapshot skips the frames the snapshot already contains.
+     * @param snapshot saves the snapshot together with the given LSN
+     * @return the LSN of the snapshot
+     * @throws IOException if the log cannot be committed or truncated, or the snapshot cannot be saved
+     */
+    public synchronized long checkpoint(Snapshot snapshot) throws IOException {
+        commit();
+        long lsn = this.nextLsn - 1;
+        snapshot.save(lsn);
+        truncate();
+        return lsn;
+    }
+
+    /**
+     * Commits the buffer and closes the log file.
+     * @throws IOException if the buffer cannot be committed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Replays all the complete frames of a log on the given tree, in the logged order.
+     * @param path the log file
+     * @param tree the base snapshot, the state of the tree when the log was started
+     * @return the number of replayed records
+     * @throws IOException if the log cannot be read, or the tree rejects a record
+     */
+    public static long replay(Path path, SegmentTree tree) throws IOException {
+        return replay(path, tree, 0);
+    }
+
+    /**
+     * Replays the complete frames of a log that come after a snapshot on the given tree, in the logged order.
+     * The changes are checked before they are logged, so a record that the tree rejects means that the tree is not
+     * the snapshot the log belongs to: the replay stops with an IOException instead of skipping the record.
+     * @param path the log file
+     * @param tree the base snapshot
+     * @param snapshotLsn the LSN of the last frame the snapshot contains, the frames up to it are skipped
+     * @return the number of replayed records
+     * @throws IOException if the log cannot be read, or the tree rejects a record
+     */
+    public static long replay(Path path, SegmentTree tree, long snapshotLsn) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] records = new long[1];
+            readFrames(channel, (lsn, payload) -> {
+                if (lsn > snapshotLsn) {
+                    records[0] += apply(lsn, payload, tree);
+                }
+            });
+            return records[0];
+        }
+    }
+
+    /**
+     * Opens a snapshot saved by a checkpoint and replays the log that follows it.
+     * The snapshot is mapped privately, so the replay does not change it, and the recovered tree is saved with the
+     * next checkpoint.
+     * @param snapshot the snapshot file, saved with SegmentTreeFile
+     * @param log the log file
+     * @return the recovered tree
+     * @throws IOException if the files cannot be read, or the log does not belong to the snapshot
+     */
+    public static OffHeapSegmentTreeByArray recover(Path snapshot, Path log) throws IOException {
+        OffHeapSegmentTreeByArray tree = SegmentTreeFile.openPrivate(snapshot);
+        replay(log, tree, SegmentTreeFile.readLsn(snapshot));
+        return tree;
+    }
+
+    /**
+     * Receives the LSN and the records of every complete frame.
+     */
+    protected interface FrameHandler {
+        void handle(long lsn, ByteBuffer records) throws IOException;
+    }
+
+    /**
+     * Helper function that reads the frames from the start of the file until the end or the first bad frame.
+     * @param channel the log file
+     * @param handler receives the LSN and the records of every good frame, may be null
+     * @return the file position after the last good frame
+     * @throws IOException if the file cannot be read
+     */
+    protected static long readFrames(FileChannel channel, FrameHandler handler) throws IOException {
+        long position = 0;
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        while (position + FRAME_HEADER_BYTES <= fileSize) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if ((length < Long.BYTES) || (length > fileSize - position - FRAME_HEADER_BYTES)) {
+                break; // torn frame
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + FRAME_HEADER_BYTES);
+            payload.flip();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int)crc.getValue() != checksum) {
+                break; // corrupt frame
+            }
+            if (handler != null) {
+                long lsn = payload.getLong();
+                handler.handle(lsn, payload);
+            }
+            position += FRAME_HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    /**
+     * Helper function that fills a buffer from the given file position.
+     * @param channel the file
+     * @param dst the buffer to fill
+     * @param position the file position
+     * @throws IOException if the file cannot be read or ends early
+     */
+    private static void readFully(FileChannel channel, ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            if (channel.read(dst, position + dst.position()) < 0) {
+                throw new IOException("Unexpected end of the update log");
+            }
+        }
+    }
+
+    /**
+     * Helper function that applies the records of one frame to a tree.
+     * @param lsn the LSN of the frame, for the error message
+     * @param payload the records
+     * @param tree the tree
+     * @return the number of applied records
+     * @throws IOException if the tree rejects a record
+     */
+    private static int apply(long lsn, ByteBuffer payload, SegmentTree tree) throws IOException {
+        int records = 0;
+        while (payload.hasRemaining()) {
+            if (!applyRecord(payload, tree)) {
+                throw new IOException("Record " + records + " of the frame with LSN " + lsn
+                    + " was rejected by the tree, the log does not belong to this snapshot");
+            }
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Helper function that reads the next record of a frame and applies it to a tree.
+     * The whole record is read before it is applied.
+     * @param payload the records, positioned at the type of the next record
+     * @param tree the tree
+     * @return true if the record was applied, false if the tree rejected it
+     */
+    private static boolean applyRecord(ByteBuffer payload, SegmentTree tree) {
+        byte type = payload.get();
+        try {
+            switch (type) {
+                case UPDATE: {
+                    int index = payload.getInt();
+                    int value = payload.getInt();
+                    tree.update(index, value);
+                    break;
+                }
+                case UPDATE_ALL: {
+                    int count = payload.getInt();
+                    int[] indices = new int[count];
+                    int[] values = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        indices[i] = payload.getInt();
+                        values[i] = payload.getInt();
+                    }
+                    tree.updateAll(indices, values);
+                    break;
+                }
+                case RANGE_ADD:
+                    tree.rangeAdd(payload.getInt(), payload.getInt(), payload.getInt());
+                    break;
+                case RANGE_ASSIGN:
+                    tree.rangeAssign(payload.getInt(), payload.getInt(), payload.getInt());
+                    break;
+                case BUILD: {
+                    int[] arr = new int[payload.getInt()];
+                    for (int i = 0; i < arr.length; i++) {
+                        arr[i] = payload.getInt();
+                    }
+                    tree.build(arr);
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown update log record type " + type);
+            }
+            return true;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+import java.util.Arrays;
+
+/**
+ * This abstract class represents a segment tree whose nodes have BRANCHING (16) children instead of 2.
+ * The tree is stored level by level in one array, starting from the leaves. Every level is padded with the neutral
+ * value to a multiple of BRANCHING, so the children of a node are 16 consecutive ints (a block),
+ * and node i of level k+1 is the combination of slots [i*16, i*16+15] of level k.
+ *
+ * Next to every slot the tree keeps the combination of its block up to the slot (this.prefix) and from the slot
+ * (this.suffix). A query therefore reads one suffix and one prefix per level instead of scanning the partial blocks,
+ * and only scans the single block where both borders meet. The addresses of all those reads depend on the borders
+ * alone, so the reads of the log16(n) levels do not wait for each other the way the root path of a binary tree does.
+ * An update rescans one block per level. The prefix and suffix slots are running combinations, so every step of
+ * those loops waits for the one before; only the reduction of {@code scan} is a loop the JIT may vectorize.
+ * The tree takes about 3n * 16/15 slots.
+ */
+public abstract class WideSegmentTreeByArray implements SegmentTree {
+
+    protected static final int BRANCHING = 16;
+    protected static final int SHIFT = 4; // log2(BRANCHING)
+
+    protected int[] tree;
+    protected int[] prefix;
+    protected int[] suffix;
+    protected int[] levelStart;
+    protected int[] levelSize;
+    protected int size;
+
+    /**
+     * Constructor for initializing the segment tree with the given input array.
+     * @param arr the input array
+     */
+    public WideSegmentTreeByArray(int[] arr) {
+        build(arr);
+    }
+
+    /**
+     * Builds the segment tree from the input array in linear time, one level after the other.
+     * @param arr the input array
+     */
+    @Override
+    public void build(int[] arr) {
+        this.size = arr.length;
+
+        // level sizes: n, ceil(n/16), ... until a single root
+        int levels = 1;
+        for (int n = Math.max(arr.length, 1); n > 1; n = (n + BRANCHING - 1) >> SHIFT) {
+            levels++;
+        }
+        this.levelStart = new int[levels];
+        this.levelSize = new int[levels];
+        int total = 0;
+        int n = Math.max(arr.length, 1);
+        for (int k = 0; k < levels; k++) {
+            this.levelStart[k] = total;
+            this.levelSize[k] = n;
+            total += padded(n);
+            n = (n + BRANCHING - 1) >> SHIFT;
+        }
+
+        this.tree = new int[total];
+        this.prefix = new int[total];
+        this.suffix = new int[total];
+        Arrays.fill(this.tree, identity());
+        System.arraycopy(arr, 0, this.tree, 0, arr.length);
+        for (int k = 0; k < levels; k++) {
+            for (int i = 0; i < padded(this.levelSize[k]); i += BRANCHING) {
+                int combined = rescan(this.levelStart[k] + i);
+                if (k + 1 < levels) {
+                    this.tree[this.levelStart[k + 1] + (i >> SHIFT)] = combined;
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper function that recomputes the prefix and suffix slots of one block from its values.
+     * @param block the first slot of the block
+     * @return the combination of the whole block
+     */
+    protected int rescan(int block) {
+        int acc = identity();
+        for (int j = block; j < block + BRANCHING; j++) {
+            acc = combine(acc, this.tree[j]);
+            this.prefix[j] = acc;
+        }
+        acc = identity();
+        for (int j = block + BRANCHING - 1; j >= block; j--) {
+            acc = combine(this.tree[j], acc);
+            this.suffix[j] = acc;
+        }
+        return this.prefix[block + BRANCHING - 1];
+    }
+
+    /**
+     * Helper function that rounds a level size up to a multiple of BRANCHING.
+     * @param n the number of nodes in the level
+     * @return the number of slots the level takes
+     */
+    protected static int padded(int n) {
+        return (n + BRANCHING - 1) & -BRANCHING;
+    }
+
+    /**
+     * Helper function used to combine the slots this.tree[from .. to-1] into acc according to the segment tree type.
+     * Implemented in the subclasses as a simple loop.
+     *
+     * @param acc the value combined so far
+     * @param from the first slot (inclusive)
+     * @param to the last slot (exclusive)
+     * @return acc combined with all the slots
+     */
+    protected abstract int scan(int acc, int from, int to);
+
+    /**
+     * Helper function used to combine the values of two nodes according to the segment tree type.
+     * Implemented in the subclasses.
+     *
+     * @param left value of the left node
+     * @param right value of the right node
+     * @return the combined value
+     */
+    protected abstract int combine(int left, int right);
+
+    /**
+     * Returns the neutral value of the segment tree type, used for the padding.
+     *
+     * @return the neutral value of the segment tree type
+     */
+    protected abstract int identity();
+
+    /**
+     * Updates the value at the specified index, and rescans the block of the element and of each ancestor.
+     * @param index the index of the element to update in the array
+     * @param value the new value to replace the existing value
+     */
+    @Override
+    public void update(int index, int value) {
+        this.tree[index] = value;
+        int i = index;
+        for (int k = 0; k < this.levelStart.length; k++) {
+            int combined = rescan(this.levelStart[k] + ((i >> SHIFT) << SHIFT));
+            i = i >> SHIFT;
+            if (k + 1 < this.levelStart.length) {
+                this.tree[this.levelStart[k + 1] + i] = combined;
+            }
+        }
+    }
+
+    /**
+     * Queries the segment tree for a range of elements.
+     * While the borders are in different blocks, the part of the left border's block from lo is one suffix slot
+     * and the part of the right border's block up to hi is one prefix slot. The blocks between them are left to
+     * the next level, where each of them is a single node. The block where the borders meet is scanned.
+     * @param left the left index of the range (inclusive)
+     * @param right the right index of the range (inclusive)
+     * @return the result of the query operation
+     */
+    @Override
+    public int queryRange(int left, int right) {
+        int before = identity(); // the combination of the parts left of the remaining range
+        int after = identity(); // the combination of the parts right of the remaining range
+        int lo = left;
+        int hi = right;
+        for (int k = 0; k < this.levelStart.length; k++) {
+            int base = this.levelStart[k];
+            if ((lo >> SHIFT) == (hi >> SHIFT)) {
+                return combine(scan(before, base + lo, base + hi + 1), after); // both borders in one block
+            }
+            before = combine(before, this.suffix[base + lo]);
+            after = combine(this.prefix[base + hi], after);
+            lo = (lo >> SHIFT) + 1;
+            hi = (hi >> SHIFT) - 1;
+            if (lo > hi) {
+                return combine(before, after);
+            }
+        }
+        return combine(before, after);
+    }
+
+    /**
+     * Returns the number of elements in the original array that the segment tree was built from.
+     *
+     * @return the size of the original array
+     */
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a string representation of the segment tree, level by level from the leaves, separated by "|".
+     * The padding is not printed.
+     * For example, for the max tree of {10,15,55,15,9,12} " [ 10 15 55 15 9 12 | 55 ] " will be returned
+     * @return a string representation of the segment tree
+     */
+    @Override
+    public String toString() {
+        StringBuilder daTree = new StringBuilder(" [");
+        for (int k = 0; k < this.levelStart.length; k++) {
+            if (k > 0) {
+                daTree.append(" |");
+            }
+            for (int i = 0; i < this.levelSize[k]; i++) {
+                daTree.append(' ').append(this.tree[this.levelStart[k] + i]);
+            }
+        }
+        daTree.append(" ] ");
+        return daTree.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package segtree.bench;
+
+import java.lang.reflect.InvocationTargetException;
+
+import segtree.SegmentTree;
+
+/**
+ * Creates the benchmarked engines by class name, so the @Param lists stay plain strings.
+ * Every engine has a public constructor that takes the input array. The reflection only runs in the setup.
+ */
+final class Engines {
+
+    private Engines() {
+    }
+
+    /**
+     * Creates the segment tree of the given class from the input array.
+     * @param name the simple class name, for example "MaximumSegmentTreeByArray"
+     * @param arr the input array
+     * @return the built tree
+     */
+    static SegmentTree create(String name, int[] arr) {
+        try {
+            return (SegmentTree)Class.forName("segtree." + name).getConstructor(int[].class).newInstance((Object)arr);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error)e.getCause(); // OutOfMemoryError for sizes that do not fit the heap
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unknown engine " + name, e);
+        }
+    }
+}
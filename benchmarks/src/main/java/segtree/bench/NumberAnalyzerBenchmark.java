@@ -0,0 +1,130 @@
+package segtree.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import segtree.NumberAnalyzer;
+import segtree.NumberAnalyzerByArrays;
+import segtree.NumberAnalyzerByFusedArray;
+import segtree.NumberAnalyzerBySharedTree;
+import segtree.NumberAnalyzerByTrees;
+
+/**
+ * Construction, range queries and update of the NumberAnalyzer implementations.
+ * The analyzers box their results, so the GC profiler output is part of the comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberAnalyzerBenchmark {
+
+    /**
+     * The numbers and a built analyzer of every kind and size. build only uses this state, so it is not repeated
+     * per distribution.
+     */
+    @State(Scope.Benchmark)
+    public static class Analyzers {
+
+        @Param({"NumberAnalyzerByArrays", "NumberAnalyzerByTrees", "NumberAnalyzerByFusedArray", "NumberAnalyzerBySharedTree"})
+        public String analyzer;
+
+        @Param({"1000", "100000", "10000000", "100000000"})
+        public int size;
+
+        Integer[] numbers;
+        NumberAnalyzer numberAnalyzer;
+
+        @Setup
+        public void setup() {
+            int[] arr = RangeWorkload.input(this.size, 42);
+            this.numbers = new Integer[this.size];
+            for (int i = 0; i < this.size; i++) {
+                this.numbers[i] = arr[i];
+            }
+            this.numberAnalyzer = create();
+        }
+
+        /**
+         * Creates the benchmarked analyzer over the numbers.
+         * @return the analyzer
+         */
+        NumberAnalyzer create() {
+            switch (this.analyzer) {
+                case "NumberAnalyzerByArrays":
+                    return new NumberAnalyzerByArrays(this.numbers);
+                case "NumberAnalyzerByTrees":
+                    return new NumberAnalyzerByTrees(this.numbers);
+                case "NumberAnalyzerByFusedArray":
+                    return new NumberAnalyzerByFusedArray(this.numbers);
+                case "NumberAnalyzerBySharedTree":
+                    return new NumberAnalyzerBySharedTree(this.numbers);
+                default:
+                    throw new IllegalArgumentException("Unknown analyzer " + this.analyzer);
+            }
+        }
+    }
+
+    /**
+     * A built analyzer with the pre-generated ranges and updates of a distribution.
+     */
+    @State(Scope.Benchmark)
+    public static class Queries extends Analyzers {
+
+        @Param({"uniform", "skewed"})
+        public String distribution;
+
+        RangeWorkload workload;
+        int cursor;
+
+        @Setup
+        public void setupWorkload() {
+            this.workload = new RangeWorkload(this.size, this.distribution, 7);
+        }
+    }
+
+    /**
+     * Builds a new analyzer, which builds all of its trees.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public NumberAnalyzer build(Analyzers state) {
+        return state.create();
+    }
+
+    @Benchmark
+    public Integer getMax(Queries state) {
+        int i = state.cursor++ & (RangeWorkload.COUNT - 1);
+        return state.numberAnalyzer.getMax(state.workload.lefts[i], state.workload.rights[i]);
+    }
+
+    @Benchmark
+    public Integer getMin(Queries state) {
+        int i = state.cursor++ & (RangeWorkload.COUNT - 1);
+        return state.numberAnalyzer.getMin(state.workload.lefts[i], state.workload.rights[i]);
+    }
+
+    @Benchmark
+    public Integer getSum(Queries state) {
+        int i = state.cursor++ & (RangeWorkload.COUNT - 1);
+        return state.numberAnalyzer.getSum(state.workload.lefts[i], state.workload.rights[i]);
+    }
+
+    @Benchmark
+    public void update(Queries state) {
+        int i = state.cursor++ & (RangeWorkload.COUNT - 1);
+        state.numberAnalyzer.update(state.workload.updateIndices[i], state.workload.updateValues[i]);
+    }
+}
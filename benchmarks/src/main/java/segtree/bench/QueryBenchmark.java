@@ -0,0 +1,98 @@
+package segtree.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import segtree.SegmentTree;
+
+/**
+ * build and queryRange of every SegmentTree engine, for sizes from 1K to 100M and both range distributions.
+ * The largest sizes need a large heap (-jvmArgsAppend -Xmx64g); an engine that does not fit fails its own
+ * parameter combination only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    /**
+     * A built tree of every engine and size. build only uses this state, so it is not repeated per distribution.
+     */
+    @State(Scope.Benchmark)
+    public static class Trees {
+
+        @Param({
+            "MaximumSegmentTreeByArray", "MinimumSegmentTreeByArray", "SummationSegmentTreeByArray",
+            "MaximumSegmentTreeByTree", "MinimumSegmentTreeByTree", "SummationSegmentTreeByTree",
+            "MaximumIterativeSegmentTreeByArray", "MinimumIterativeSegmentTreeByArray", "SummationIterativeSegmentTreeByArray",
+            "MaximumSegmentTreeByArena", "MinimumSegmentTreeByArena", "SummationSegmentTreeByArena",
+            "MaximumWideSegmentTreeByArray", "MinimumWideSegmentTreeByArray", "SummationWideSegmentTreeByArray",
+            "MaximumOffHeapSegmentTreeByArray", "MinimumOffHeapSegmentTreeByArray", "SummationOffHeapSegmentTreeByArray",
+            "MaximumPersistentSegmentTreeByTree", "MinimumPersistentSegmentTreeByTree", "SummationPersistentSegmentTreeByTree",
+            "SummationFenwickTree", "MaximumSparseTable", "MinimumSparseTable"
+        })
+        public String engine;
+
+        @Param({"1000", "100000", "10000000", "100000000"})
+        public int size;
+
+        int[] arr;
+        SegmentTree tree;
+
+        @Setup
+        public void setup() {
+            this.arr = RangeWorkload.input(this.size, 42);
+            this.tree = Engines.create(this.engine, this.arr);
+        }
+    }
+
+    /**
+     * A built tree with the pre-generated ranges of a distribution.
+     */
+    @State(Scope.Benchmark)
+    public static class Queries extends Trees {
+
+        @Param({"uniform", "skewed"})
+        public String distribution;
+
+        RangeWorkload workload;
+        int cursor;
+
+        @Setup
+        public void setupWorkload() {
+            this.workload = new RangeWorkload(this.size, this.distribution, 7);
+        }
+    }
+
+    /**
+     * Rebuilds the tree from the input array.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SegmentTree build(Trees state) {
+        state.tree.build(state.arr);
+        return state.tree;
+    }
+
+    /**
+     * One range query from the pre-generated workload.
+     */
+    @Benchmark
+    public int queryRange(Queries state) {
+        int i = state.cursor++ & (RangeWorkload.COUNT - 1);
+        return state.tree.queryRange(state.workload.lefts[i], state.workload.rights[i]);
+    }
+}
@@ -0,0 +1,81 @@
+package segtree.bench;
+
+import java.util.SplittableRandom;
+
+/**
+ * Pre-generated query ranges and update indices, so the benchmarks only measure the engines.
+ *
+ * uniform: both ends of a range are uniform over the array, so the average range covers a third of it.
+ * skewed: the ranges start in a hot region near index 0 (the density of a start decays like x^4) and their lengths
+ *         are log-uniform between 1 and n, the way recent time series data tends to be queried. Updates hit the
+ *         same hot region.
+ */
+final class RangeWorkload {
+
+    static final int COUNT = 1 << 16; // a power of two, so a cursor can wrap with a mask
+
+    final int[] lefts = new int[COUNT];
+    final int[] rights = new int[COUNT];
+    final int[] updateIndices = new int[COUNT];
+    final int[] updateValues = new int[COUNT];
+
+    /**
+     * Generates the workload.
+     * @param size the number of elements
+     * @param distribution "uniform" or "skewed"
+     * @param seed the random seed
+     */
+    RangeWorkload(int size, String distribution, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        boolean skewed;
+        if ("uniform".equals(distribution)) {
+            skewed = false;
+        } else if ("skewed".equals(distribution)) {
+            skewed = true;
+        } else {
+            throw new IllegalArgumentException("Unknown distribution " + distribution);
+        }
+        for (int i = 0; i < COUNT; i++) {
+            if (skewed) {
+                int start = hot(random, size);
+                long length = (long)Math.exp(random.nextDouble() * Math.log(size));
+                this.lefts[i] = start;
+                this.rights[i] = (int)Math.min(size - 1, start + Math.max(length, 1) - 1);
+                this.updateIndices[i] = hot(random, size);
+            } else {
+                int a = random.nextInt(size);
+                int b = random.nextInt(size);
+                this.lefts[i] = Math.min(a, b);
+                this.rights[i] = Math.max(a, b);
+                this.updateIndices[i] = random.nextInt(size);
+            }
+            this.updateValues[i] = random.nextInt(1000);
+        }
+    }
+
+    /**
+     * Returns an index in the hot region near 0.
+     * @param random the random source
+     * @param size the number of elements
+     * @return the index
+     */
+    private static int hot(SplittableRandom random, int size) {
+        double x = random.nextDouble();
+        return Math.min(size - 1, (int)(size * x * x * x * x));
+    }
+
+    /**
+     * Returns the input array of the engines.
+     * @param size the number of elements
+     * @param seed the random seed
+     * @return random values in [0, 1000)
+     */
+    static int[] input(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] arr = new int[size];
+        for (int i = 0; i < size; i++) {
+            arr[i] = random.nextInt(1000);
+        }
+        return arr;
+    }
+}
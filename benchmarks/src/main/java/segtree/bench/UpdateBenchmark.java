@@ -0,0 +1,67 @@
+package segtree.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import segtree.SegmentTree;
+
+/**
+ * update of every mutable SegmentTree engine, for sizes from 1K to 100M and both index distributions.
+ * The sparse tables do not support update, and the persistent trees keep every version, so a timed loop of
+ * updates would only measure how fast they run out of heap; both are left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdateBenchmark {
+
+    @Param({
+        "MaximumSegmentTreeByArray", "MinimumSegmentTreeByArray", "SummationSegmentTreeByArray",
+        "MaximumSegmentTreeByTree", "MinimumSegmentTreeByTree", "SummationSegmentTreeByTree",
+        "MaximumIterativeSegmentTreeByArray", "MinimumIterativeSegmentTreeByArray", "SummationIterativeSegmentTreeByArray",
+        "MaximumSegmentTreeByArena", "MinimumSegmentTreeByArena", "SummationSegmentTreeByArena",
+        "MaximumWideSegmentTreeByArray", "MinimumWideSegmentTreeByArray", "SummationWideSegmentTreeByArray",
+        "MaximumOffHeapSegmentTreeByArray", "MinimumOffHeapSegmentTreeByArray", "SummationOffHeapSegmentTreeByArray",
+        "SummationFenwickTree"
+    })
+    public String engine;
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    public int size;
+
+    @Param({"uniform", "skewed"})
+    public String distribution;
+
+    private SegmentTree tree;
+    private RangeWorkload workload;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        this.tree = Engines.create(this.engine, RangeWorkload.input(this.size, 42));
+        this.workload = new RangeWorkload(this.size, this.distribution, 7);
+    }
+
+    /**
+     * One point update from the pre-generated workload.
+     */
+    @Benchmark
+    public void update() {
+        int i = this.cursor++ & (RangeWorkload.COUNT - 1);
+        this.tree.update(this.workload.updateIndices[i], this.workload.updateValues[i]);
+    }
+}